@@ -0,0 +1,28 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Book;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Book book(long id) {
+        var book = new Book();
+        book.setId(id);
+        book.setTitle("The Art of Computer Programming, Vol. " + id);
+        book.setAuthor("Donald E. Knuth");
+        book.setIsbn(String.format("978%010d", id));
+        book.setCategory("computer-science");
+        book.setBorrowed(id % 3 == 0);
+        return book;
+    }
+
+    /*Same data without an id, ready to be persisted*/
+    static Book newBook(long n) {
+        var book = book(n);
+        book.setId(null);
+        book.setBorrowed(false);
+        return book;
+    }
+}
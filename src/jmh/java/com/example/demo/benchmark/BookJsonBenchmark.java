@@ -0,0 +1,49 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.mapper.BookMapperImpl;
+import com.example.demo.model.dto.BookDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BookJsonBenchmark {
+
+    @Param({"50", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<BookDto> books;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        var bookMapper = new BookMapperImpl();
+        books = LongStream.rangeClosed(1, size)
+                .mapToObj(BenchmarkData::book)
+                .map(bookMapper::toDto)
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.mapper.BookMapper;
+import com.example.demo.mapper.BookMapperImpl;
+import com.example.demo.model.Book;
+import com.example.demo.model.dto.BookDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BookMapperBenchmark {
+
+    private BookMapper bookMapper;
+    private Book book;
+    private BookDto bookDto;
+
+    @Setup
+    public void setUp() {
+        bookMapper = new BookMapperImpl();
+        book = BenchmarkData.book(1L);
+        bookDto = bookMapper.toDto(book);
+    }
+
+    @Benchmark
+    public BookDto toDto() {
+        return bookMapper.toDto(book);
+    }
+
+    @Benchmark
+    public Book toEntity() {
+        return bookMapper.toEntity(bookDto);
+    }
+}
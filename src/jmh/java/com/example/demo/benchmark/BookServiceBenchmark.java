@@ -0,0 +1,98 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.model.dto.BookDto;
+import com.example.demo.model.dto.BookFilterDto;
+import com.example.demo.model.dto.BookPageDto;
+import com.example.demo.model.jpa.repository.BookRepository;
+import com.example.demo.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/*BookServiceImpl through its Spring proxies (transactions, cache) against an in-memory H2*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BookServiceBenchmark {
+
+    private static final int BOOKS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private Long bookId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.run(DemoApplication.class, h2Arguments("bookServiceBenchmark"));
+        bookService = context.getBean(BookService.class);
+        context.getBean(BookRepository.class).saveAll(LongStream.rangeClosed(1, BOOKS)
+                .mapToObj(BenchmarkData::newBook)
+                .toList());
+        bookId = bookService.findAll(null, null, 1).getContent().getFirst().getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookPageDto findAllFirstPage() {
+        return bookService.findAll(null, null, 50);
+    }
+
+    @Benchmark
+    public BookPageDto findAllLastPage() {
+        return bookService.findAll(null, bookId + BOOKS - 51, 50);
+    }
+
+    @Benchmark
+    public BookPageDto findAllByCategoryAndTitle() {
+        return bookService.findAll(new BookFilterDto(null, "computer-science", "vol. 99", null), null, 50);
+    }
+
+    @Benchmark
+    public Optional<BookDto> findByIdCached() {
+        return bookService.findById(bookId);
+    }
+
+    @Benchmark
+    public BookDto borrowAndReturn() {
+        bookService.borrowBook(bookId);
+        return bookService.returnBook(bookId);
+    }
+
+    static String[] h2Arguments(String database) {
+        return new String[]{
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.liquibase.enabled=false",
+                "--loans.partitions.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.security=WARN"
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.jwt.util.JwtUtil;
+import com.example.demo.config.jwt.util.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Per-request authentication cost. legacyFilterPath replays what JwtRequestFilter used to do on
+ * every request (extractUsername, then validateToken re-reading subject and expiry: three
+ * signature checks); parseOnce is the current cold path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil("benchmark-secret", TimeUnit.HOURS.toMillis(1));
+        userDetails = User.withUsername("user").password("user").roles("USER").build();
+        token = jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token, userDetails);
+    }
+
+    @Benchmark
+    public boolean legacyFilterPath() {
+        var username = jwtUtil.extractUsername(token);
+        var subject = jwtUtil.extractClaim(token, Claims::getSubject);
+        var expiration = jwtUtil.extractClaim(token, Claims::getExpiration);
+        return username.equals(subject) && expiration.after(new Date());
+    }
+
+    @Benchmark
+    public VerifiedToken parseOnce() {
+        return jwtUtil.parseToken(token);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.loadtest;
+
+import java.util.Arrays;
+
+/*Single-writer latency log for one operation; workers each own one and they are merged at the end*/
+final class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+
+    void record(long latencyNanos, boolean error) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        if (error) {
+            errors++;
+        }
+    }
+
+    void merge(LatencyRecorder other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, count + other.count);
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    /*Sorts in place; call once recording is over*/
+    Summary summarize(double seconds) {
+        Arrays.sort(latencies, 0, count);
+        return new Summary(count, errors, count / seconds,
+                percentileMillis(0.50), percentileMillis(0.99), percentileMillis(0.999),
+                count == 0 ? 0 : latencies[count - 1] / 1_000_000.0,
+                count == 0 ? 0 : (double) errors / count);
+    }
+
+    private double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        var index = (int) Math.ceil(percentile * count) - 1;
+        return latencies[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    record Summary(long requests, long errors, double throughput,
+                   double p50Millis, double p99Millis, double p999Millis, double maxMillis, double errorRate) {
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.model.Book;
+import com.example.demo.model.jpa.repository.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.SpringApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+/*
+ * Boots DemoApplication on a random port against in-memory H2, logs in through /v1/auth and drives a
+ * mixed /v1/books workload from a fixed number of closed-loop clients. Prints throughput, p50/p99/p999
+ * latency and error rate per operation, writes them as JSON, and fails when the error rate is too high.
+ *
+ * Run with ./gradlew loadTest [-Pconcurrency=64] [-Pduration=30] [-Pprofiles=vthreads]
+ */
+public final class LoadTestRunner {
+
+    enum Operation {
+        GET_BY_ID(55), LIST_PAGE(15), CREATE(10), BORROW_RETURN(15), DELETE(5);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    /*ISBNs are unique, so every run starts from a random base to avoid clashing with books left by earlier runs*/
+    private static final AtomicLong ISBN_SEQUENCE =
+            new AtomicLong(9_790_000_000_000L + ThreadLocalRandom.current().nextLong(5_000_000_000L));
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final String userToken;
+    private final String adminToken;
+    private final long firstBookId;
+    private final int books;
+    private final int hotBooks;
+
+    private LoadTestRunner(String baseUrl, long firstBookId, int books, int hotBooks) throws IOException, InterruptedException {
+        this.baseUrl = baseUrl;
+        this.firstBookId = firstBookId;
+        this.books = books;
+        this.hotBooks = hotBooks;
+        this.userToken = login("user", "user");
+        this.adminToken = login("admin", "admin");
+    }
+
+    public static void main(String[] args) throws Exception {
+        var concurrency = Integer.getInteger("loadtest.concurrency", 32);
+        var warmup = Duration.ofSeconds(Long.getLong("loadtest.warmupSeconds", 5));
+        var duration = Duration.ofSeconds(Long.getLong("loadtest.durationSeconds", 30));
+        var books = Integer.getInteger("loadtest.books", 10_000);
+        var hotBooks = Integer.getInteger("loadtest.hotBooks", 10);
+        var maxErrorRate = Double.parseDouble(System.getProperty("loadtest.maxErrorRate", "0.001"));
+        var report = Path.of(System.getProperty("loadtest.report", "build/reports/loadtest/result.json"));
+
+        Map<String, Object> results;
+        try (var context = SpringApplication.run(DemoApplication.class, applicationArguments(System.getProperty("loadtest.profiles", "")))) {
+            var seeded = context.getBean(BookRepository.class).saveAll(LongStream.range(0, books)
+                    .mapToObj(LoadTestRunner::newBook)
+                    .toList());
+            var baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            var runner = new LoadTestRunner(baseUrl, seeded.getFirst().getId(), books, hotBooks);
+
+            System.out.printf("Warming up for %ds with %d clients%n", warmup.toSeconds(), concurrency);
+            runner.run(concurrency, warmup);
+            System.out.printf("Measuring for %ds with %d clients%n", duration.toSeconds(), concurrency);
+            var recorders = runner.run(concurrency, duration);
+            results = report(recorders, duration, concurrency);
+        }
+
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(report.toFile(), results);
+        System.out.println("Report written to " + report.toAbsolutePath());
+
+        var errorRate = ((LatencyRecorder.Summary) results.get("TOTAL")).errorRate();
+        if (errorRate > maxErrorRate) {
+            System.err.printf("Error rate %.4f exceeds the allowed %.4f%n", errorRate, maxErrorRate);
+            System.exit(1);
+        }
+    }
+
+    private Map<Operation, LatencyRecorder> run(int concurrency, Duration duration) throws Exception {
+        var deadline = System.nanoTime() + duration.toNanos();
+        var workers = new ArrayList<Callable<Map<Operation, LatencyRecorder>>>();
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(() -> work(deadline));
+        }
+
+        var merged = new EnumMap<Operation, LatencyRecorder>(Operation.class);
+        for (var operation : Operation.values()) {
+            merged.put(operation, new LatencyRecorder());
+        }
+        try (var executor = Executors.newFixedThreadPool(concurrency)) {
+            for (var result : executor.invokeAll(workers)) {
+                result.get().forEach((operation, recorder) -> merged.get(operation).merge(recorder));
+            }
+        }
+        return merged;
+    }
+
+    private Map<Operation, LatencyRecorder> work(long deadline) {
+        var random = ThreadLocalRandom.current();
+        var created = new ArrayDeque<Long>();
+        var recorders = new EnumMap<Operation, LatencyRecorder>(Operation.class);
+        for (var operation : Operation.values()) {
+            recorders.put(operation, new LatencyRecorder());
+        }
+
+        while (System.nanoTime() < deadline) {
+            var operation = pick(random.nextInt(100));
+            if (operation == Operation.DELETE && created.isEmpty()) {
+                operation = Operation.CREATE;
+            }
+            var start = System.nanoTime();
+            boolean error;
+            try {
+                error = execute(operation, random, created);
+            } catch (IOException e) {
+                error = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            recorders.get(operation).record(System.nanoTime() - start, error);
+        }
+        return recorders;
+    }
+
+    /*Returns true when the response is an error for this operation; 400 on a contended borrow is expected*/
+    private boolean execute(Operation operation, ThreadLocalRandom random, ArrayDeque<Long> created)
+            throws IOException, InterruptedException {
+        return switch (operation) {
+            case GET_BY_ID -> send(get("/v1/books/" + (firstBookId + random.nextInt(books)))).statusCode() != 200;
+            case LIST_PAGE -> send(get("/v1/books?limit=50&after=" + (firstBookId + random.nextInt(books)))).statusCode() != 200;
+            case CREATE -> {
+                var response = send(request("/v1/books", userToken)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(Map.of(
+                                "title", "Load test book",
+                                "author", "Load Tester",
+                                "isbn", String.valueOf(ISBN_SEQUENCE.incrementAndGet()),
+                                "category", "load-test"))))
+                        .build());
+                if (response.statusCode() == 200) {
+                    created.add(OBJECT_MAPPER.readTree(response.body()).get("id").asLong());
+                    yield false;
+                }
+                yield true;
+            }
+            case BORROW_RETURN -> {
+                var action = random.nextBoolean() ? "borrow" : "return";
+                var status = send(request("/v1/books/" + action + "/" + (firstBookId + random.nextInt(hotBooks)), userToken)
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build()).statusCode();
+                yield status != 200 && status != 400;
+            }
+            case DELETE -> send(request("/v1/books/" + created.poll(), adminToken).DELETE().build()).statusCode() != 200;
+        };
+    }
+
+    private static Operation pick(int roll) {
+        var cumulative = 0;
+        for (var operation : Operation.values()) {
+            cumulative += operation.weight;
+            if (roll < cumulative) {
+                return operation;
+            }
+        }
+        return Operation.GET_BY_ID;
+    }
+
+    private HttpRequest get(String path) {
+        return request(path, userToken).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String login(String username, String password) throws IOException, InterruptedException {
+        var response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/v1/auth"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(Map.of(
+                        "username", username, "password", password))))
+                .build());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login as " + username + " failed with " + response.statusCode());
+        }
+        return OBJECT_MAPPER.readTree(response.body()).get("token").asText();
+    }
+
+    private static Map<String, Object> report(Map<Operation, LatencyRecorder> recorders, Duration duration, int concurrency) {
+        var seconds = duration.toMillis() / 1000.0;
+        var total = new LatencyRecorder();
+        var results = new LinkedHashMap<String, Object>();
+        System.out.printf("%n%-14s %10s %10s %9s %9s %9s %9s %8s%n",
+                "operation", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+        for (var entry : recorders.entrySet()) {
+            total.merge(entry.getValue());
+            var summary = entry.getValue().summarize(seconds);
+            print(entry.getKey().name(), summary);
+            results.put(entry.getKey().name(), summary);
+        }
+        var summary = total.summarize(seconds);
+        print("TOTAL", summary);
+        results.put("TOTAL", summary);
+        results.put("concurrency", concurrency);
+        results.put("durationSeconds", duration.toSeconds());
+        return results;
+    }
+
+    private static void print(String name, LatencyRecorder.Summary summary) {
+        System.out.printf("%-14s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %7.3f%%%n",
+                name, summary.requests(), summary.throughput(), summary.p50Millis(), summary.p99Millis(),
+                summary.p999Millis(), summary.maxMillis(), summary.errorRate() * 100);
+    }
+
+    private static Book newBook(long n) {
+        var book = new Book();
+        book.setTitle("Seed book " + n);
+        book.setAuthor("Author " + (n % 500));
+        book.setIsbn(String.valueOf(ISBN_SEQUENCE.incrementAndGet()));
+        book.setCategory("category-" + (n % 20));
+        book.setBorrowed(false);
+        return book;
+    }
+
+    private static String[] applicationArguments(String profiles) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.liquibase.enabled=false",
+                "--loans.partitions.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.security=WARN"));
+        if (!profiles.isBlank()) {
+            arguments.add("--spring.profiles.active=" + profiles);
+        }
+        return arguments.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String BOOKS_CACHE = "books";
+
+    /*
+     * Size/TTL bounds and stats come from books.cache.spec (Caffeine spec syntax).
+     * Hit, miss and eviction counters are published as cache.* metrics on /actuator/metrics.
+     */
+    @Bean
+    public CacheManager cacheManager(@Value("${books.cache.spec}") String spec) {
+        var caffeineCacheManager = new CaffeineCacheManager(BOOKS_CACHE);
+        caffeineCacheManager.setCacheSpecification(spec);
+        /*Evictions wait for the commit, otherwise a concurrent reader could re-cache the old row*/
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
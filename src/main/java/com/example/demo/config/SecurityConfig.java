@@ -2,13 +2,18 @@ package com.example.demo.config;
 
 import com.example.demo.config.jwt.JwtAuthenticationEntryPoint;
 import com.example.demo.config.jwt.JwtRequestFilter;
+import com.example.demo.config.jwt.JwtTokenCache;
+import com.example.demo.config.jwt.TokenDenylist;
 import com.example.demo.config.jwt.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -16,7 +21,6 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
@@ -52,7 +56,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests((requests) -> requests
                         .anyRequest().permitAll()
                 )
-                .securityMatcher("/swagger-ui/**", "/v3/api-docs/**", "/v1/auth");
+                .securityMatcher("/swagger-ui/**", "/v3/api-docs/**", "/v1/auth", "/actuator/health");
 
         http
                 .csrf(csrf -> csrf
@@ -62,15 +66,45 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /*
+     * The rest of /actuator: Prometheus scrapes with HTTP Basic as the metrics user, everything else
+     * (caches accepts DELETE) is admin-only. Admins can also use their JWT here.
+     */
     @Bean
     @Order(2)
-    public SecurityFilterChain defaultFilterChain(HttpSecurity http, UserDetailsService userDetailsService, JwtUtil jwtUtil) throws Exception {
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http, JwtUtil jwtUtil, JwtTokenCache jwtTokenCache,
+                                                   TokenDenylist tokenDenylist, MeterRegistry meterRegistry) throws Exception {
+        http
+                .securityMatcher("/actuator/**")
+                .authorizeHttpRequests((requests) -> requests
+                        .requestMatchers(HttpMethod.GET, "/actuator/prometheus").hasAnyRole("METRICS", "ADMIN")
+                        .anyRequest().hasRole("ADMIN")
+                );
+
+        http.httpBasic(Customizer.withDefaults());
+        http
+                .sessionManagement((session) -> session
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                );
+
+        http.csrf(AbstractHttpConfigurer::disable);
+
+        http.addFilterBefore(new JwtRequestFilter(jwtUtil, jwtTokenCache, tokenDenylist, meterRegistry), UsernamePasswordAuthenticationFilter.class);
+        return http.build();
+    }
+
+    @Bean
+    @Order(3)
+    public SecurityFilterChain defaultFilterChain(HttpSecurity http, JwtUtil jwtUtil, JwtTokenCache jwtTokenCache,
+                                                  TokenDenylist tokenDenylist, MeterRegistry meterRegistry) throws Exception {
 
         http
                 .authorizeHttpRequests((requests) -> requests
+                        .requestMatchers(HttpMethod.POST, "/v1/books:bulk").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/v1/books/**").hasAnyRole("USER", "ADMIN")
                         .requestMatchers(HttpMethod.POST, "/v1/books/**").hasAnyRole("USER", "ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/v1/books/**").hasAnyRole("USER", "ADMIN")
+                        .requestMatchers(HttpMethod.PATCH, "/v1/books/**").hasAnyRole("USER", "ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/v1/books/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 );
@@ -88,12 +122,13 @@ public class SecurityConfig {
         http.csrf(AbstractHttpConfigurer::disable);
         http.cors(AbstractHttpConfigurer::disable);
 
-        http.addFilterBefore(new JwtRequestFilter(userDetailsService, jwtUtil), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(new JwtRequestFilter(jwtUtil, jwtTokenCache, tokenDenylist, meterRegistry), UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
 
     @Bean
-    public InMemoryUserDetailsManager inMemoryUserDetailsManager(PasswordEncoder passwordEncoder) {
+    public InMemoryUserDetailsManager inMemoryUserDetailsManager(PasswordEncoder passwordEncoder,
+                                                                 @Value("${metrics.scrape.password}") String scrapePassword) {
         var manager = new InMemoryUserDetailsManager();
         manager.createUser(User.withUsername("user")
                 .password(passwordEncoder.encode("user"))
@@ -103,6 +138,10 @@ public class SecurityConfig {
                 .password(passwordEncoder.encode("admin"))
                 .roles("ADMIN")
                 .build());
+        manager.createUser(User.withUsername("prometheus")
+                .password(passwordEncoder.encode(scrapePassword))
+                .roles("METRICS")
+                .build());
         return manager;
     }
 }
\ No newline at end of file
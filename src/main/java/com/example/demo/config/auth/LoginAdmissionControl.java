@@ -0,0 +1,158 @@
+package com.example.demo.config.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+ * Keeps login storms away from the book API. Every login must first take a token from its client
+ * address bucket and its username bucket, then the password check (BCrypt) runs on a small
+ * dedicated pool with a bounded queue. Anything over either limit is rejected straight away
+ * instead of tying up a servlet worker.
+ */
+@Component
+public class LoginAdmissionControl implements DisposableBean {
+
+    /*Rejections by the hashing pool have no bucket to derive a wait from; its queue drains in well under a second*/
+    private static final Duration BUSY_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final Cache<String, TokenBucket> buckets;
+    private final int bucketCapacity;
+    private final double refillPerSecond;
+    private final ThreadPoolExecutor hashingExecutor;
+    private final Timer hashTimer;
+    private final Counter rateLimited;
+    private final Counter queueRejected;
+
+    public LoginAdmissionControl(@Value("${auth.login.rate-limit.capacity}") int bucketCapacity,
+                                 @Value("${auth.login.rate-limit.refill-per-second}") double refillPerSecond,
+                                 @Value("${auth.login.hashing.threads}") int hashingThreads,
+                                 @Value("${auth.login.hashing.queue-capacity}") int queueCapacity,
+                                 MeterRegistry meterRegistry) {
+        this.bucketCapacity = bucketCapacity;
+        this.refillPerSecond = refillPerSecond;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+
+        var threadNumber = new AtomicInteger();
+        this.hashingExecutor = new ThreadPoolExecutor(hashingThreads, hashingThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    var thread = new Thread(runnable, "login-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = Timer.builder("auth.login.password.check")
+                .description("Time spent verifying login passwords")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rateLimited = meterRegistry.counter("auth.login.rejected", "reason", "rate_limited");
+        this.queueRejected = meterRegistry.counter("auth.login.rejected", "reason", "queue_full");
+        meterRegistry.gauge("auth.login.queue.size", hashingExecutor, executor -> executor.getQueue().size());
+    }
+
+    public <T> T admit(String username, String clientAddress, Supplier<T> passwordCheck) {
+        var addressBucket = bucket("ip:" + clientAddress);
+        var usernameBucket = bucket("user:" + username);
+        var admitted = addressBucket.tryAcquire();
+        if (admitted && !usernameBucket.tryAcquire()) {
+            /*A login the username bucket turns away must not use up the address's allowance*/
+            addressBucket.refund();
+            admitted = false;
+        }
+        if (!admitted) {
+            rateLimited.increment();
+            var wait = Math.max(addressBucket.nanosUntilToken(), usernameBucket.nanosUntilToken());
+            throw new LoginRejectedException("Too many login attempts", Duration.ofNanos(wait));
+        }
+
+        Future<T> result;
+        try {
+            result = hashingExecutor.submit(() -> hashTimer.record(passwordCheck));
+        } catch (RejectedExecutionException e) {
+            queueRejected.increment();
+            throw new LoginRejectedException("Too many concurrent logins", BUSY_RETRY_AFTER);
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            throw new LoginRejectedException("Login interrupted", BUSY_RETRY_AFTER);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        hashingExecutor.shutdownNow();
+    }
+
+    private TokenBucket bucket(String key) {
+        return buckets.get(key, k -> new TokenBucket(bucketCapacity, refillPerSecond));
+    }
+
+    private static final class TokenBucket {
+        private final int capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(int capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        /*Never blocks inside the monitor, so it does not pin virtual threads*/
+        private synchronized boolean tryAcquire() {
+            refill();
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        private synchronized void refund() {
+            refill();
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+                private synchronized long nanosUntilToken() {
+            refill();
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / refillPerNano);
+        }
+
+        private void refill() {
+            var now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * refillPerNano);
+            refilledAt = now;
+        }
+    }
+}
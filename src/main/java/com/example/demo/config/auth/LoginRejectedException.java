@@ -0,0 +1,16 @@
+package com.example.demo.config.auth;
+
+import java.time.Duration;
+
+public class LoginRejectedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public LoginRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
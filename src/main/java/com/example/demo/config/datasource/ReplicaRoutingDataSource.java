@@ -0,0 +1,87 @@
+package com.example.demo.config.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/*
+ * Sends @Transactional(readOnly = true) work to the replica and everything else to the primary.
+ * Only correct behind a LazyConnectionDataSourceProxy: the transaction manager asks for a connection
+ * before the read-only flag is bound to the thread, the proxy holds off until the first statement.
+ *
+ * A user who has just written reads from the primary for sticky-window, so they see their own write
+ * even while the replica lags. Anonymous callers can't be told apart and are never sticky.
+ * Reads that outlive the request, like the ones filling the shared books cache, go through readFromPrimary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = ThreadLocal.withInitial(() -> false);
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReplicaRoutingDataSource(Duration stickyWindow) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(stickyWindow)
+                .build();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        var username = currentUsername();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriteOnCommit(username);
+            return Target.PRIMARY;
+        }
+        if (PRIMARY_READS.get() || (username != null && recentWriters.getIfPresent(username) != null)) {
+            return Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+
+    /*
+     * Runs the read on the primary even inside a read-only transaction. The connection is only picked at the
+     * first statement, so this works as long as that statement runs inside the supplier.
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        var previous = PRIMARY_READS.get();
+        PRIMARY_READS.set(true);
+        try {
+            return read.get();
+        } finally {
+            PRIMARY_READS.set(previous);
+        }
+    }
+
+    /*The window starts at commit, when the replica starts catching up*/
+    private void rememberWriteOnCommit(String username) {
+        if (username == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(username, Boolean.TRUE);
+            }
+        });
+    }
+
+    private static String currentUsername() {
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -1,29 +1,41 @@
 package com.example.demo.config.jwt;
 
 import com.example.demo.config.jwt.util.JwtUtil;
+import com.example.demo.config.jwt.util.VerifiedToken;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 public class JwtRequestFilter extends OncePerRequestFilter {
 
-    private final UserDetailsService userDetailsService;
     private final JwtUtil jwtTokenUtil;
+    private final JwtTokenCache jwtTokenCache;
+    private final TokenDenylist tokenDenylist;
+    private final Timer cachedVerifyTimer;
+    private final Timer fullVerifyTimer;
 
     @Autowired
-    public JwtRequestFilter(UserDetailsService userDetailsService, JwtUtil jwtTokenUtil) {
-        this.userDetailsService = userDetailsService;
+    public JwtRequestFilter(JwtUtil jwtTokenUtil, JwtTokenCache jwtTokenCache, TokenDenylist tokenDenylist,
+                            MeterRegistry meterRegistry) {
         this.jwtTokenUtil = jwtTokenUtil;
+        this.jwtTokenCache = jwtTokenCache;
+        this.tokenDenylist = tokenDenylist;
+        this.cachedVerifyTimer = meterRegistry.timer("jwt.verify", "cache", "hit");
+        this.fullVerifyTimer = meterRegistry.timer("jwt.verify", "cache", "miss");
     }
 
     @Override
@@ -32,30 +44,29 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         var requestTokenHeader = request.getHeader("Authorization");
 
-        String username = null;
         String jwtToken = null;
 
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
             jwtToken = requestTokenHeader.substring(7);
-            try {
-                username = jwtTokenUtil.extractUsername(jwtToken);
-            } catch (IllegalArgumentException e) {
-                logger.error("Unable to get JWT Token");
-            } catch (ExpiredJwtException e) {
-                logger.error("JWT Token has expired");
-            }
         } else {
-            logger.warn("JWT Token does not begin with Bearer String");
+            logger.debug("JWT Token does not begin with Bearer String");
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-            var userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (jwtToken != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            if (jwtTokenUtil.validateToken(jwtToken, userDetails)) {
+            var start = System.nanoTime();
+            var verifiedToken = jwtTokenCache.get(jwtToken);
+            if (verifiedToken != null) {
+                cachedVerifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } else {
+                verifiedToken = verify(jwtToken);
+                fullVerifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
 
+            if (verifiedToken != null && !tokenDenylist.isRevoked(verifiedToken)) {
+                /*Authorities come from the signed roles claim, no user lookup per request*/
                 var usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
+                        verifiedToken.subject(), null, AuthorityUtils.createAuthorityList(verifiedToken.roles()));
                 usernamePasswordAuthenticationToken
                         .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
@@ -64,4 +75,27 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
         chain.doFilter(request, response);
     }
+
+    /*Cold path: one signature check, remembered until the token expires*/
+    private VerifiedToken verify(String jwtToken) {
+        VerifiedToken verifiedToken;
+        try {
+            verifiedToken = jwtTokenUtil.parseToken(jwtToken);
+        } catch (IllegalArgumentException e) {
+            logger.error("Unable to get JWT Token");
+            return null;
+        } catch (ExpiredJwtException e) {
+            logger.error("JWT Token has expired");
+            return null;
+        } catch (JwtException e) {
+            logger.error("JWT Token is invalid");
+            return null;
+        }
+
+        if (verifiedToken.subject() == null || verifiedToken.isExpired()) {
+            return null;
+        }
+        jwtTokenCache.put(jwtToken, verifiedToken);
+        return verifiedToken;
+    }
 }
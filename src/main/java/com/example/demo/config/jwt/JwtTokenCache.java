@@ -0,0 +1,69 @@
+package com.example.demo.config.jwt;
+
+import com.example.demo.config.jwt.util.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Remembers tokens that already passed signature and expiry checks, so repeat requests with the
+ * same bearer token skip parsing and HMAC verification. Entries are keyed by the token's SHA-256
+ * digest (raw tokens are never kept) and expire together with the token.
+ */
+@Component
+public class JwtTokenCache {
+
+    private final Cache<String, VerifiedToken> tokens;
+
+    public JwtTokenCache(@Value("${jwt.cache.maximum-size}") long maximumSize) {
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(
+                                Math.max(0, value.expiration().getTime() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public VerifiedToken get(String token) {
+        var cached = tokens.getIfPresent(digest(token));
+        if (cached == null || cached.isExpired()) {
+            return null;
+        }
+        return cached;
+    }
+
+    public void put(String token, VerifiedToken verifiedToken) {
+        tokens.put(digest(token), verifiedToken);
+    }
+
+    private static String digest(String token) {
+        try {
+            var sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
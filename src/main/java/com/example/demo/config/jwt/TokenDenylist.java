@@ -0,0 +1,73 @@
+package com.example.demo.config.jwt;
+
+import com.example.demo.config.jwt.util.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * In-memory revocation for stateless tokens. A revoked token id is only remembered until the token
+ * itself would expire, and a revoked user only for one token lifetime, so the lists stay small.
+ * Neither cache is size-bounded: evicting an entry early would make a revoked token valid again.
+ */
+@Component
+public class TokenDenylist {
+
+    private final Cache<String, Long> revokedTokens;
+    private final Cache<String, Long> revokedUsers;
+
+    public TokenDenylist(@Value("${jwt.expiration}") Long expiration) {
+        this.revokedTokens = Caffeine.newBuilder()
+                .expireAfter(new Expiry<String, Long>() {
+                    @Override
+                    public long expireAfterCreate(String key, Long expiresAt, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiresAt - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Long expiresAt, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, expiresAt, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Long expiresAt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.revokedUsers = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(expiration))
+                .build();
+    }
+
+    public void revoke(VerifiedToken token) {
+        revokedTokens.put(token.id(), token.expiration().getTime());
+    }
+
+    /*Rejects every token issued to the user before the current second*/
+    public void revokeUser(String username) {
+        revokedUsers.put(username, System.currentTimeMillis());
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.id() != null && revokedTokens.getIfPresent(token.id()) != null) {
+            return true;
+        }
+        var revokedAt = revokedUsers.getIfPresent(token.subject());
+        if (revokedAt == null) {
+            return false;
+        }
+        /*
+         * iat only has second precision. Comparing against the revocation second, strictly, keeps a token
+         * issued right after the revocation (a fresh login) valid; one from that same second before it slips through.
+         */
+        var revokedBefore = new Date(revokedAt - revokedAt % 1000);
+        return token.issuedAt() == null || token.issuedAt().before(revokedBefore);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.config.jwt.util;
+
+import java.util.Date;
+import java.util.List;
+
+/*Claims of a token whose signature has already been checked by JwtUtil.parseToken*/
+public record VerifiedToken(String id, String subject, Date issuedAt, Date expiration, List<String> roles) {
+
+    public boolean isExpired() {
+        return expiration.before(new Date());
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.config.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Turns on SQL and security tracing for a single request, either because the caller sent the
+ * configured token in the X-Diagnostics header or because the request was sampled. Without a
+ * configured token the header is ignored, so nobody can switch tracing on from outside.
+ */
+public class DiagnosticsFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Diagnostics";
+
+    private final byte[] token;
+    private final double sampleRate;
+
+    public DiagnosticsFilter(String token, double sampleRate) {
+        this.token = token == null || token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!isTraced(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        MDC.put(DiagnosticsTurboFilter.MDC_KEY, "trace");
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(DiagnosticsTurboFilter.MDC_KEY);
+        }
+    }
+
+    private boolean isTraced(HttpServletRequest request) {
+        var header = request.getHeader(HEADER);
+        if (header != null && token != null
+                && MessageDigest.isEqual(token, header.getBytes(StandardCharsets.UTF_8))) {
+            return true;
+        }
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.config.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Opens the diagnostic loggers (SQL, security) down to TRACE, but only for requests that
+ * DiagnosticsFilter marked in the MDC. Every other event falls through to the normal levels.
+ * Configured in logback-spring.xml.
+ */
+public class DiagnosticsTurboFilter extends TurboFilter {
+
+    public static final String MDC_KEY = "diagnostics";
+
+    private final List<String> loggerPrefixes = new ArrayList<>();
+
+    public void addLogger(String loggerPrefix) {
+        loggerPrefixes.add(loggerPrefix);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (MDC.get(MDC_KEY) == null || logger == null) {
+            return FilterReply.NEUTRAL;
+        }
+        for (var prefix : loggerPrefixes) {
+            if (logger.getName().startsWith(prefix)) {
+                return FilterReply.ACCEPT;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
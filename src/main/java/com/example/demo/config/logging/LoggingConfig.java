@@ -0,0 +1,21 @@
+package com.example.demo.config.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class LoggingConfig {
+
+    /*Ahead of the security filter chain, so its tracing is covered too*/
+    @Bean
+    public FilterRegistrationBean<DiagnosticsFilter> diagnosticsFilter(
+            @Value("${logging.diagnostics.token:}") String token,
+            @Value("${logging.diagnostics.sample-rate:0}") double sampleRate) {
+        var registration = new FilterRegistrationBean<>(new DiagnosticsFilter(token, sampleRate));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
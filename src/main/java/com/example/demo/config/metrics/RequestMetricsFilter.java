@@ -0,0 +1,53 @@
+package com.example.demo.config.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*Records how many SQL statements each request issued, tagged like http.server.requests*/
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    /*One summary per method and route template, built once instead of going through the registry on every request*/
+    private final Map<Route, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public RequestMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementCounter.reset();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            var uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            summaries.computeIfAbsent(new Route(request.getMethod(), uri == null ? "UNKNOWN" : uri.toString()), this::register)
+                    .record(SqlStatementCounter.count());
+            SqlStatementCounter.clear();
+        }
+    }
+
+    private DistributionSummary register(Route route) {
+        return DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("SQL statements executed while handling a request")
+                .baseUnit("statements")
+                .tag("method", route.method())
+                .tag("uri", route.uri())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private record Route(String method, String uri) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.config.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/*
+ * Counts the SQL statements Hibernate prepares on the current thread. RequestMetricsFilter resets
+ * it when a request starts and reads it when the request ends.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> STATEMENTS = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        STATEMENTS.get()[0] = 0;
+    }
+
+    public static int count() {
+        return STATEMENTS.get()[0];
+    }
+
+    public static void clear() {
+        STATEMENTS.remove();
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.demo.mapper;
 import com.example.demo.model.Book;
 import com.example.demo.model.dto.BookDto;
+import com.example.demo.model.jpa.projection.BookSearchView;
+import com.example.demo.model.jpa.projection.BookUpdateView;
 import org.mapstruct.Mapper;
 
 @Mapper(componentModel = "spring")
 public interface BookMapper {
     BookDto toDto(Book book);
+    BookDto toDto(BookSearchView view);
+    BookDto toDto(BookUpdateView view);
     Book toEntity(BookDto bookDto);
 }
@@ -8,6 +8,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Data;
 
 @Entity
@@ -16,7 +17,7 @@ import lombok.Data;
 public class Book {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "BOOK_GENERATOR")
-    @SequenceGenerator(name = "BOOK_GENERATOR", sequenceName = "BOOK_SEQ", allocationSize = 1)
+    @SequenceGenerator(name = "BOOK_GENERATOR", sequenceName = "BOOK_SEQ", allocationSize = 50)
     @Column(name = "book_id")
     private Long id;
 
@@ -26,7 +27,7 @@ public class Book {
     @Column
     private String author;
 
-    @Column
+    @Column(unique = true)
     private String isbn;
 
     @Column
@@ -35,6 +36,10 @@ public class Book {
     @Column
     private Boolean borrowed = false;
 
+    @Version
+    @Column
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -82,5 +87,13 @@ public class Book {
     public void setBorrowed(Boolean borrowed) {
         this.borrowed = borrowed;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
 
@@ -0,0 +1,58 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/*
+ * Outbox row written in the same transaction as the book change. The id only orders rows within a node;
+ * seq is assigned later by the relay in commit order, gap-free, and is what consumers page by.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "book_change")
+public class BookChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "BOOK_CHANGE_GENERATOR")
+    @SequenceGenerator(name = "BOOK_CHANGE_GENERATOR", sequenceName = "BOOK_CHANGE_SEQ", allocationSize = 50)
+    @Column(name = "change_id")
+    private Long id;
+
+    @Column(unique = true)
+    private Long seq;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 20)
+    private Type type;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    public BookChange(Long bookId, Type type, Instant occurredAt) {
+        this.bookId = bookId;
+        this.type = type;
+        this.occurredAt = occurredAt;
+    }
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        BORROWED,
+        RETURNED
+    }
+}
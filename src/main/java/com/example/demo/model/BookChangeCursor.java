@@ -0,0 +1,32 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Single row holding the last seq handed out; relays on every node lock it, so sequencing is serialized.
+ * It also records how far the retention purge has deleted, so the feed can tell a consumer it fell behind.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "book_change_cursor")
+public class BookChangeCursor {
+    public static final int ID = 1;
+
+    @Id
+    @Column(name = "cursor_id")
+    private Integer id;
+
+    @Column(name = "last_seq", nullable = false)
+    private Long lastSeq;
+
+    @Column(name = "purged_through_seq", nullable = false)
+    private Long purgedThroughSeq;
+}
@@ -0,0 +1,48 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/*
+ * One row per loan in the ledger. Rows are only ever inserted and closed once (returnedAt),
+ * never deleted, and they outlive the book. On Postgres the table is range-partitioned by
+ * borrowed_at, one partition per month (see LoanPartitionMaintainer).
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "loan")
+public class Loan {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "LOAN_GENERATOR")
+    @SequenceGenerator(name = "LOAN_GENERATOR", sequenceName = "LOAN_SEQ", allocationSize = 50)
+    @Column(name = "loan_id")
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(name = "borrowed_at", nullable = false)
+    private Instant borrowedAt;
+
+    @Column(name = "returned_at")
+    private Instant returnedAt;
+
+    public Loan(Long bookId, String username, Instant borrowedAt) {
+        this.bookId = bookId;
+        this.username = username;
+        this.borrowedAt = borrowedAt;
+    }
+}
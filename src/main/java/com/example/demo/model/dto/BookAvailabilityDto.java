@@ -0,0 +1,18 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookAvailabilityDto {
+    private Long bookId;
+    private boolean borrowed;
+    /*Change feed seq of the transition; for the snapshot sent on connect, the seq it is complete up to*/
+    private Long seq;
+    private Instant occurredAt;
+}
@@ -0,0 +1,21 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookBatchResultDto {
+    private Long id;
+    private Status status;
+
+    public enum Status {
+        BORROWED,
+        RETURNED,
+        ALREADY_BORROWED,
+        NOT_BORROWED,
+        NOT_FOUND
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.model.dto;
+
+import com.example.demo.model.BookChange;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookChangeDto {
+    private Long seq;
+    private Long bookId;
+    private BookChange.Type type;
+    private Instant occurredAt;
+}
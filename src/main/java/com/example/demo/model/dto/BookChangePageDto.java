@@ -0,0 +1,25 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookChangePageDto {
+    private List<BookChangeDto> content;
+    /* Seq of the last change on the page (or the "since" that was asked for); pass it as the next "since" */
+    private Long lastSeq;
+    /*
+     * Changes right after "since" have been purged, so the page is empty. The consumer has to reload
+     * the books in full and then carry on from lastSeq, which is the newest seq at the time of the answer.
+     */
+    private boolean resyncRequired;
+
+    public BookChangePageDto(List<BookChangeDto> content, Long lastSeq) {
+        this(content, lastSeq, false);
+    }
+}
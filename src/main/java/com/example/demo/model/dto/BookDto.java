@@ -16,6 +16,23 @@ public class BookDto {
     private String category;
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private Boolean borrowed;
+    /* Also sent as the ETag; echo it in If-Match to make a write conditional */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    public BookDto() {
+    }
+
+    /*Used by the constructor expressions in BookRepository, so reads skip the entity and the mapper*/
+    public BookDto(Long id, String title, String author, String isbn, String category, Boolean borrowed, Long version) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.category = category;
+        this.borrowed = borrowed;
+        this.version = version;
+    }
 
     public Long getId() {
         return id;
@@ -64,4 +81,12 @@ public class BookDto {
     public void setBorrowed(Boolean borrowed) {
         this.borrowed = borrowed;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
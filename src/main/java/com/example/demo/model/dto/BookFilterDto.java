@@ -0,0 +1,17 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*Optional list filters; null fields are ignored*/
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookFilterDto {
+    private String author;
+    private String category;
+    /* Case-insensitive substring of the title */
+    private String title;
+    private Boolean borrowed;
+}
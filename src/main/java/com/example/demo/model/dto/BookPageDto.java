@@ -0,0 +1,16 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookPageDto {
+    private List<BookDto> content;
+    /* Id of the last book on the page, pass it as "after" to get the next one; null on the last page */
+    private Long nextCursor;
+}
@@ -0,0 +1,15 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookSearchHitDto {
+    private BookDto book;
+    private Float score;
+    /* Title and author with matched terms wrapped in <mark>; only filled when highlighting was requested */
+    private String highlight;
+}
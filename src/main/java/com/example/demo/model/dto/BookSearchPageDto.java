@@ -0,0 +1,16 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookSearchPageDto {
+    private List<BookSearchHitDto> content;
+    private int page;
+    private boolean hasNext;
+}
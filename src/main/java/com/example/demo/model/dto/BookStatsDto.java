@@ -0,0 +1,19 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookStatsDto {
+    private List<CategoryStatsDto> categories;
+    private long available;
+    private long borrowed;
+    /*Counters are exact as of this instant and kept up to date incrementally since*/
+    private Instant reconciledAt;
+}
@@ -0,0 +1,14 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CategoryStatsDto {
+    private String category;
+    private Long available;
+    private Long borrowed;
+}
@@ -0,0 +1,19 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanDto {
+    private Long id;
+    private Long bookId;
+    private String username;
+    private Instant borrowedAt;
+    /* Null while the book is still out */
+    private Instant returnedAt;
+}
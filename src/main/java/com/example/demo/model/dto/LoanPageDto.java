@@ -0,0 +1,19 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanPageDto {
+    private List<LoanDto> content;
+    /* borrowedAt and id of the last loan on the page, pass them as "before" and "beforeId" to get the next one;
+       null on the last page */
+    private Instant nextCursor;
+    private Long nextCursorId;
+}
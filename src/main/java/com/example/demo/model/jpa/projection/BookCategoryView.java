@@ -0,0 +1,7 @@
+package com.example.demo.model.jpa.projection;
+
+/*Category and borrowed flag of a row as a write found it; what the stats counters need to follow the change*/
+public interface BookCategoryView {
+    String getCategory();
+    Boolean getBorrowed();
+}
@@ -0,0 +1,14 @@
+package com.example.demo.model.jpa.projection;
+
+/*Row of the native full-text search query; aliases in BookRepository match these getters*/
+public interface BookSearchView {
+    Long getId();
+    String getTitle();
+    String getAuthor();
+    String getIsbn();
+    String getCategory();
+    Boolean getBorrowed();
+    Long getVersion();
+    Float getScore();
+    String getHighlight();
+}
@@ -0,0 +1,13 @@
+package com.example.demo.model.jpa.projection;
+
+/*Row returned by the native update by ISBN, with the category it had before; aliases in BookRepository match these getters*/
+public interface BookUpdateView {
+    Long getId();
+    String getTitle();
+    String getAuthor();
+    String getIsbn();
+    String getCategory();
+    Boolean getBorrowed();
+    Long getVersion();
+    String getPreviousCategory();
+}
@@ -0,0 +1,19 @@
+package com.example.demo.model.jpa.repository;
+
+import com.example.demo.model.BookChangeCursor;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BookChangeCursorRepository extends JpaRepository<BookChangeCursor, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from BookChangeCursor c where c.id = :id")
+    Optional<BookChangeCursor> findForUpdate(@Param("id") Integer id);
+}
@@ -0,0 +1,32 @@
+package com.example.demo.model.jpa.repository;
+
+import com.example.demo.model.BookChange;
+import com.example.demo.model.dto.BookChangeDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface BookChangeRepository extends JpaRepository<BookChange, Long> {
+
+    /*Served by the partial book_change_unsequenced_idx on Postgres, so the sequenced history isn't scanned*/
+    @Query("select c from BookChange c where c.seq is null order by c.id")
+    List<BookChange> findUnsequenced(Limit limit);
+
+    @Query("select new com.example.demo.model.dto.BookChangeDto(c.seq, c.bookId, c.type, c.occurredAt) "
+            + "from BookChange c where c.seq > :since order by c.seq")
+    List<BookChangeDto> findSequencedAfter(@Param("since") long since, Limit limit);
+
+    @Query("select max(c.seq) from BookChange c where c.occurredAt < :cutoff")
+    Long findLastSeqBefore(@Param("cutoff") Instant cutoff);
+
+    @Modifying
+    @Query("delete from BookChange c where c.seq <= :seq")
+    int deleteSequencedThrough(@Param("seq") long seq);
+}
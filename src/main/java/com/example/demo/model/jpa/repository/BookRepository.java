@@ -1,8 +1,172 @@
 package com.example.demo.model.jpa.repository;
 
 import com.example.demo.model.Book;
+import com.example.demo.model.dto.BookDto;
+import com.example.demo.model.dto.CategoryStatsDto;
+import com.example.demo.model.jpa.projection.BookCategoryView;
+import com.example.demo.model.jpa.projection.BookSearchView;
+import com.example.demo.model.jpa.projection.BookUpdateView;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {}
\ No newline at end of file
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>, BookRepositoryCustom {
+
+    @Query("select new com.example.demo.model.dto.BookDto(b.id, b.title, b.author, b.isbn, b.category, b.borrowed, b.version) "
+            + "from Book b where b.id > :id order by b.id")
+    List<BookDto> findPageAfter(@Param("id") Long id, Limit limit);
+
+    @Query("select new com.example.demo.model.dto.BookDto(b.id, b.title, b.author, b.isbn, b.category, b.borrowed, b.version) "
+            + "from Book b where b.id = :id")
+    Optional<BookDto> findDtoById(@Param("id") Long id);
+
+    @Query("select new com.example.demo.model.dto.BookDto(b.id, b.title, b.author, b.isbn, b.category, b.borrowed, b.version) "
+            + "from Book b where b.id in :ids")
+    List<BookDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.example.demo.model.dto.BookDto(b.id, b.title, b.author, b.isbn, b.category, b.borrowed, b.version) "
+            + "from Book b where b.isbn = :isbn")
+    Optional<BookDto> findByIsbn(@Param("isbn") String isbn);
+
+    /*
+     * The existing-ISBN half of the upsert: one statement that also hands back the category the row had,
+     * which the stats counters need when it changes. The subquery locks the row before it is read.
+     * A row that already holds these values is left untouched and nothing comes back, so a retried PUT
+     * keeps its version. Borrowed state is left alone. Postgres only.
+     */
+    @Query(value = """
+            update book b
+            set title = :title, author = :author, category = :category, version = b.version + 1
+            from (select book_id, category from book where isbn = :isbn for update) previous
+            where b.book_id = previous.book_id
+              and (b.title, b.author, b.category) is distinct from (:title, :author, :category)
+            returning b.book_id as id, b.title as title, b.author as author, b.isbn as isbn, b.category as category,
+                      b.borrowed as borrowed, b.version as version, previous.category as previousCategory
+            """, nativeQuery = true)
+    Optional<BookUpdateView> updateByIsbn(@Param("isbn") String isbn, @Param("title") String title,
+                                          @Param("author") String author, @Param("category") String category);
+
+    /*
+     * The insert half, for an ISBN updateByIsbn didn't find. Another transaction may insert the same ISBN
+     * in between; the unique index resolves that conflict into an update, or into nothing at all when that
+     * row already holds these values. The id comes from the Hibernate pool and is unused in both cases.
+     * Postgres only.
+     */
+    @Query(value = """
+            insert into book (book_id, title, author, isbn, category, borrowed, version)
+            values (:id, :title, :author, :isbn, :category, false, 0)
+            on conflict (isbn) do update
+                set title = excluded.title, author = excluded.author, category = excluded.category,
+                    version = book.version + 1
+                where (book.title, book.author, book.category) is distinct from (excluded.title, excluded.author, excluded.category)
+            returning *
+            """, nativeQuery = true)
+    Optional<Book> upsertByIsbn(@Param("id") Long id, @Param("isbn") String isbn, @Param("title") String title,
+                                @Param("author") String author, @Param("category") String category);
+
+    /*Rows come back as DTOs, so nothing piles up in the persistence context however long the stream is*/
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.demo.model.dto.BookDto(b.id, b.title, b.author, b.isbn, b.category, b.borrowed, b.version) "
+            + "from Book b order by b.id")
+    Stream<BookDto> streamAll();
+
+    /*
+     * Full-text search over the generated search_vector column (Postgres only, see changeset 5).
+     * The GIN index finds the matches, ts_rank orders them; ties fall back to the id so pages are stable.
+     */
+    @Query(value = """
+            select b.book_id as id, b.title as title, b.author as author, b.isbn as isbn,
+                   b.category as category, b.borrowed as borrowed, b.version as version,
+                   ts_rank(b.search_vector, q.query) as score, null as highlight
+            from book b, websearch_to_tsquery('simple', :q) as q(query)
+            where b.search_vector @@ q.query
+            order by score desc, b.book_id
+            limit :limit offset :offset
+            """, nativeQuery = true)
+    List<BookSearchView> search(@Param("q") String q, @Param("limit") int limit, @Param("offset") int offset);
+
+    /*Same search, but ts_headline only runs for the rows of the requested page*/
+    @Query(value = """
+            with hits as (
+                select b.book_id, b.title, b.author, b.isbn, b.category, b.borrowed, b.version,
+                       ts_rank(b.search_vector, q.query) as score, q.query
+                from book b, websearch_to_tsquery('simple', :q) as q(query)
+                where b.search_vector @@ q.query
+                order by score desc, b.book_id
+                limit :limit offset :offset
+            )
+            select book_id as id, title, author, isbn, category, borrowed, version, score,
+                   ts_headline('simple', title || ' - ' || author, query, 'StartSel=<mark>, StopSel=</mark>') as highlight
+            from hits
+            order by score desc, book_id
+            """, nativeQuery = true)
+    List<BookSearchView> searchHighlighted(@Param("q") String q, @Param("limit") int limit, @Param("offset") int offset);
+
+    /*
+     * Full replacement of the editable columns; borrowed state is owned by borrow/return.
+     * Every bulk update below bumps the version itself, since these statements bypass Hibernate's @Version handling.
+     * A null version means "no If-Match", otherwise the row is only touched if it is still at that version.
+     */
+    @Modifying
+    @Query("update Book b set b.title = :title, b.author = :author, b.isbn = :isbn, b.category = :category, "
+            + "b.version = b.version + 1 "
+            + "where b.id = :id and (:version is null or b.version = :version)")
+    int update(@Param("id") Long id, @Param("version") Long version, @Param("title") String title,
+               @Param("author") String author, @Param("isbn") String isbn, @Param("category") String category);
+
+    /*The same update while the row still has this category; a hit leaves the category counters nothing to follow*/
+    @Modifying
+    @Query("update Book b set b.title = :title, b.author = :author, b.isbn = :isbn, b.category = :category, "
+            + "b.version = b.version + 1 "
+            + "where b.id = :id and (:version is null or b.version = :version) "
+            + "and (b.category = :category or (b.category is null and :category is null))")
+    int updateInCategory(@Param("id") Long id, @Param("version") Long version, @Param("title") String title,
+                         @Param("author") String author, @Param("isbn") String isbn, @Param("category") String category);
+
+    /*Unlike the inherited deleteById this doesn't load the entity first, and the row count says whether it existed*/
+    @Modifying
+    @Query("delete from Book b where b.id = :id and (:version is null or b.version = :version)")
+    int removeById(@Param("id") Long id, @Param("version") Long version);
+
+    /*Locks the row for the write that follows, so the category read here is still the one it replaces or removes*/
+    @Query(value = "select category, borrowed from book where book_id = :id for update", nativeQuery = true)
+    Optional<BookCategoryView> lockCategoryById(@Param("id") Long id);
+
+    /*The row count is the outcome: 1 means this caller won the book, 0 means it is borrowed or missing*/
+    @Modifying
+    @Query("update Book b set b.borrowed = true, b.version = b.version + 1 where b.id = :id and b.borrowed = false")
+    int markBorrowed(@Param("id") Long id);
+
+    @Modifying
+    @Query("update Book b set b.borrowed = false, b.version = b.version + 1 where b.id = :id and b.borrowed = true")
+    int markReturned(@Param("id") Long id);
+
+    /*Rows are locked in id order, so two batches with overlapping ids queue up instead of deadlocking*/
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.id in :ids order by b.id")
+    List<Book> findAllForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Book b set b.borrowed = :borrowed, b.version = b.version + 1 where b.id in :ids")
+    int updateBorrowed(@Param("ids") Collection<Long> ids, @Param("borrowed") boolean borrowed);
+
+    @Query("select new com.example.demo.model.dto.CategoryStatsDto(b.category, "
+            + "sum(case when b.borrowed = true then 0L else 1L end), sum(case when b.borrowed = true then 1L else 0L end)) "
+            + "from Book b group by b.category")
+    List<CategoryStatsDto> countByCategory();
+}
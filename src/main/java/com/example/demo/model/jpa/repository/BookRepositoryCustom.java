@@ -0,0 +1,22 @@
+package com.example.demo.model.jpa.repository;
+
+import com.example.demo.model.Book;
+import com.example.demo.model.dto.BookDto;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface BookRepositoryCustom {
+
+    /*Matching books in id order as DTOs, selected column by column, so no entity is loaded or managed*/
+    List<BookDto> findDtos(Specification<Book> specification, int limit);
+
+    /*
+     * Updates only the non-null title/author/isbn/category of the given changes and bumps the version;
+     * a non-null version makes it conditional on the row still being at that version. Returns the row count.
+     */
+    int patch(Long id, Long version, BookDto changes);
+
+    /*The same patch while the row still has the (non-null) category of the changes*/
+    int patchInCategory(Long id, Long version, BookDto changes);
+}
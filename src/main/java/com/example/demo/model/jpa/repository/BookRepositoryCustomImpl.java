@@ -0,0 +1,76 @@
+package com.example.demo.model.jpa.repository;
+
+import com.example.demo.model.Book;
+import com.example.demo.model.dto.BookDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/*Picked up by Spring Data as the implementation of BookRepositoryCustom*/
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookDto> findDtos(Specification<Book> specification, int limit) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(BookDto.class);
+        var root = query.from(Book.class);
+        query.select(cb.construct(BookDto.class, root.get("id"), root.get("title"), root.get("author"),
+                        root.get("isbn"), root.get("category"), root.get("borrowed"), root.get("version")))
+                .where(specification.toPredicate(root, query, cb))
+                .orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public int patch(Long id, Long version, BookDto changes) {
+        return patch(id, version, changes, false);
+    }
+
+    @Override
+    public int patchInCategory(Long id, Long version, BookDto changes) {
+        return patch(id, version, changes, true);
+    }
+
+    private int patch(Long id, Long version, BookDto changes, boolean inCategory) {
+        var cb = entityManager.getCriteriaBuilder();
+        var update = cb.createCriteriaUpdate(Book.class);
+        var root = update.from(Book.class);
+        var changed = false;
+        if (changes.getTitle() != null) {
+            update.set(root.<String>get("title"), changes.getTitle());
+            changed = true;
+        }
+        if (changes.getAuthor() != null) {
+            update.set(root.<String>get("author"), changes.getAuthor());
+            changed = true;
+        }
+        if (changes.getIsbn() != null) {
+            update.set(root.<String>get("isbn"), changes.getIsbn());
+            changed = true;
+        }
+        if (changes.getCategory() != null) {
+            update.set(root.<String>get("category"), changes.getCategory());
+            changed = true;
+        }
+        if (!changed) {
+            throw new IllegalArgumentException("Nothing to update");
+        }
+        Path<Long> versionPath = root.get("version");
+        update.set(versionPath, cb.sum(versionPath, 1L));
+        var where = cb.equal(root.get("id"), id);
+        if (version != null) {
+            where = cb.and(where, cb.equal(versionPath, version));
+        }
+        if (inCategory) {
+            where = cb.and(where, cb.equal(root.get("category"), changes.getCategory()));
+        }
+        update.where(where);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.model.jpa.repository;
+
+import com.example.demo.model.Loan;
+import com.example.demo.model.dto.LoanDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LoanRepository extends JpaRepository<Loan, Long> {
+
+    /*
+     * Newest first, keyed on (borrowedAt, id): a batch borrow stamps all its loans with the same instant, so the
+     * id breaks ties and a page can end inside a batch. The first page and the pages after it are separate
+     * queries, so the borrowed_at bound on the latter is a plain predicate Postgres can prune partitions with
+     * (an "or :before is null" guard would hide it from the planner).
+     */
+    @Query("select new com.example.demo.model.dto.LoanDto(l.id, l.bookId, l.username, l.borrowedAt, l.returnedAt) "
+            + "from Loan l where l.bookId = :bookId "
+            + "order by l.borrowedAt desc, l.id desc")
+    List<LoanDto> findByBook(@Param("bookId") Long bookId, Limit limit);
+
+    @Query("select new com.example.demo.model.dto.LoanDto(l.id, l.bookId, l.username, l.borrowedAt, l.returnedAt) "
+            + "from Loan l where l.bookId = :bookId and l.borrowedAt <= :before "
+            + "and (l.borrowedAt < :before or l.id < :beforeId) "
+            + "order by l.borrowedAt desc, l.id desc")
+    List<LoanDto> findByBookBefore(@Param("bookId") Long bookId, @Param("before") Instant before,
+                                   @Param("beforeId") Long beforeId, Limit limit);
+
+    @Query("select new com.example.demo.model.dto.LoanDto(l.id, l.bookId, l.username, l.borrowedAt, l.returnedAt) "
+            + "from Loan l where l.username = :username "
+            + "order by l.borrowedAt desc, l.id desc")
+    List<LoanDto> findByUsername(@Param("username") String username, Limit limit);
+
+    @Query("select new com.example.demo.model.dto.LoanDto(l.id, l.bookId, l.username, l.borrowedAt, l.returnedAt) "
+            + "from Loan l where l.username = :username and l.borrowedAt <= :before "
+            + "and (l.borrowedAt < :before or l.id < :beforeId) "
+            + "order by l.borrowedAt desc, l.id desc")
+    List<LoanDto> findByUsernameBefore(@Param("username") String username, @Param("before") Instant before,
+                                       @Param("beforeId") Long beforeId, Limit limit);
+
+    /*Closes the open loan of each book in one statement; the partial loan_open_idx keeps this cheap*/
+    @Modifying
+    @Query("update Loan l set l.returnedAt = :returnedAt where l.bookId in :bookIds and l.returnedAt is null")
+    int closeOpenLoans(@Param("bookIds") Collection<Long> bookIds, @Param("returnedAt") Instant returnedAt);
+}
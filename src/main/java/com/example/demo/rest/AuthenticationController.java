@@ -1,17 +1,26 @@
 package com.example.demo.rest;
 
+import com.example.demo.config.auth.LoginAdmissionControl;
+import com.example.demo.config.auth.LoginRejectedException;
+import com.example.demo.config.jwt.TokenDenylist;
 import com.example.demo.config.jwt.util.JwtUtil;
 import com.example.demo.model.dto.AuthRequestDto;
 import com.example.demo.model.dto.AuthResponseDto;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -24,14 +33,26 @@ public class AuthenticationController {
     private JwtUtil jwtUtil;
     @Autowired
     private UserDetailsService userDetailsService;
+    @Autowired
+    private TokenDenylist tokenDenylist;
+    @Autowired
+    private LoginAdmissionControl loginAdmissionControl;
 
 
+    /*getRemoteAddr is the real client behind a trusted proxy, see server.forward-headers-strategy*/
     @PostMapping
-    public ResponseEntity<AuthResponseDto> authenticate(@RequestBody AuthRequestDto authRequest) {
+    public ResponseEntity<AuthResponseDto> authenticate(@RequestBody AuthRequestDto authRequest, HttpServletRequest request) {
         try {
-            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword()));
+            loginAdmissionControl.admit(authRequest.getUsername(), request.getRemoteAddr(), () ->
+                    authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword())));
         } catch (BadCredentialsException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
+        } catch (LoginRejectedException e) {
+            /*Whole seconds, rounded up, so a client that honours it finds a token waiting*/
+            var retryAfter = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body(null);
         }
 
         var userDetails = userDetailsService.loadUserByUsername(authRequest.getUsername());
@@ -39,4 +60,25 @@ public class AuthenticationController {
 
         return ResponseEntity.ok(new AuthResponseDto(token));
     }
+
+    /*Logout: the caller's own token stops working on this node until it would have expired anyway*/
+    @PostMapping("/revoke")
+    public ResponseEntity<Object> revoke(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        if (!authorization.startsWith("Bearer ")) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            tokenDenylist.revoke(jwtUtil.parseToken(authorization.substring(7)));
+        } catch (JwtException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/revoke/{username}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Object> revokeUser(@PathVariable String username) {
+        tokenDenylist.revokeUser(username);
+        return ResponseEntity.ok().build();
+    }
 }
@@ -0,0 +1,105 @@
+package com.example.demo.rest.book;
+
+import com.example.demo.model.dto.BookAvailabilityDto;
+import com.example.demo.service.BookChangeService;
+import com.example.demo.service.BookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/v1/books/availability")
+public class BookAvailabilityController {
+
+    static final int MAX_STREAM_IDS = 100;
+    private static final int REPLAY_PAGE_SIZE = 500;
+    /*Bounds the feed read for a reconnect; a longer gap is cheaper to cover with a snapshot*/
+    private static final int MAX_REPLAY_PAGES = 10;
+    /*Events from before the subscriber registered that the hub should still pass on*/
+    private static final long ALL_PENDING = -1;
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookChangeService bookChangeService;
+    @Autowired
+    private BookAvailabilityHub bookAvailabilityHub;
+
+    /*
+     * Borrow/return transitions as server-sent events, for every book or only the given ids. Each event id
+     * is its change feed seq. A reconnect with Last-Event-ID replays the transitions after it from the feed.
+     * Otherwise a stream with ids opens with their current state, so a kiosk needs no separate GET.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAvailability(@RequestParam(required = false) Set<Long> ids,
+                                                         @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        var bookIds = ids == null ? Set.<Long>of() : Set.copyOf(ids);
+        if (bookIds.size() > MAX_STREAM_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return bookAvailabilityHub.subscribe(bookIds, limit -> backlog(bookIds, lastEventId, limit))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build());
+    }
+
+    /*
+     * Runs after the subscriber is registered. The snapshot is stamped with a seq read before it and bypasses
+     * the cache, so it reflects at least every change up to that seq; later ones follow as events.
+     */
+    private BookAvailabilityHub.Backlog backlog(Set<Long> bookIds, Long lastEventId, int limit) {
+        if (lastEventId != null) {
+            var replay = replay(bookIds, lastEventId, limit);
+            if (replay.isPresent()) {
+                return replay.get();
+            }
+        }
+        if (bookIds.isEmpty()) {
+            /*A stream of every book has no snapshot to fall back on*/
+            return new BookAvailabilityHub.Backlog(List.of(), ALL_PENDING, lastEventId != null);
+        }
+        var throughSeq = bookChangeService.lastSeq();
+        var snapshot = bookService.findCurrent(bookIds).stream()
+                .map(book -> new BookAvailabilityDto(book.getId(), Boolean.TRUE.equals(book.getBorrowed()), throughSeq, null))
+                .toList();
+        return new BookAvailabilityHub.Backlog(snapshot, throughSeq, false);
+    }
+
+    /*Empty when the feed no longer covers the gap or the replay would overflow the subscriber's queue*/
+    private Optional<BookAvailabilityHub.Backlog> replay(Set<Long> bookIds, long since, int limit) {
+        var events = new ArrayList<BookAvailabilityDto>();
+        var seq = since;
+        for (int i = 0; i < MAX_REPLAY_PAGES; i++) {
+            var page = bookChangeService.findSince(seq, REPLAY_PAGE_SIZE);
+            if (page.isResyncRequired()) {
+                return Optional.empty();
+            }
+            page.getContent().stream()
+                    .flatMap(change -> BookAvailabilityHub.availabilityOf(change).stream())
+                    .filter(transition -> bookIds.isEmpty() || bookIds.contains(transition.getBookId()))
+                    .forEach(events::add);
+            if (events.size() > limit) {
+                return Optional.empty();
+            }
+            seq = page.getLastSeq();
+            if (page.getContent().size() < REPLAY_PAGE_SIZE) {
+                return Optional.of(new BookAvailabilityHub.Backlog(events, seq, false));
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.demo.rest.book;
+
+import com.example.demo.model.BookChange;
+import com.example.demo.model.dto.BookAvailabilityDto;
+import com.example.demo.model.dto.BookChangeDto;
+import com.example.demo.service.BookChangesRelayedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/*
+ * Fan-out behind GET /v1/books/availability/stream. An idle subscriber is only an SseEmitter and a
+ * small queue; a queue with something in it is drained on a virtual thread of its own, so a client
+ * whose TCP window is full blocks only its own writer. A subscriber whose queue fills up, or whose
+ * write hangs past write-timeout, is disconnected, so one stalled kiosk never holds back the rest or
+ * grows the heap. Heartbeats keep proxies from closing idle streams and flush out clients that went
+ * away without saying so.
+ */
+@Component
+public class BookAvailabilityHub implements DisposableBean {
+
+    /*Queued instead of a transition; compared by identity*/
+    private static final BookAvailabilityDto HEARTBEAT = new BookAvailabilityDto();
+    private static final BookAvailabilityDto RESYNC = new BookAvailabilityDto();
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher;
+    private final int queueCapacity;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    private final long writeTimeoutNanos;
+    private final Counter dropped;
+    private final Counter stalled;
+
+    public BookAvailabilityHub(@Value("${books.availability.stream.queue-capacity}") int queueCapacity,
+                               @Value("${books.availability.stream.max-subscribers}") int maxSubscribers,
+                               @Value("${books.availability.stream.timeout-ms}") long timeoutMs,
+                               @Value("${books.availability.stream.write-timeout-ms}") long writeTimeoutMs,
+                               MeterRegistry meterRegistry) {
+        this.queueCapacity = queueCapacity;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+
+        this.dispatcher = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("availability-sse-", 0).factory());
+
+        this.dropped = meterRegistry.counter("books.availability.subscribers.dropped", "reason", "slow_consumer");
+        this.stalled = meterRegistry.counter("books.availability.subscribers.dropped", "reason", "write_timeout");
+        meterRegistry.gaugeCollectionSize("books.availability.subscribers", Tags.empty(), subscribers);
+    }
+
+    /*
+     * Empty when the hub is full. The backlog is loaded only once the subscriber is registered, with at
+     * most the given number of events; transitions relayed meanwhile are held back, and the ones past
+     * its throughSeq follow it, so nothing between the two is lost or sent out of order. The backlog
+     * goes through the subscriber's queue like any other event, so it is never written from the request thread.
+     */
+    public Optional<SseEmitter> subscribe(Set<Long> bookIds, IntFunction<Backlog> backlog) {
+        if (subscribers.size() >= maxSubscribers) {
+            return Optional.empty();
+        }
+        var subscriber = new Subscriber(new SseEmitter(timeoutMs), bookIds, new ArrayBlockingQueue<>(queueCapacity));
+        subscriber.emitter().onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter().onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter().onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        Backlog initial;
+        try {
+            initial = backlog.apply(queueCapacity / 2);
+        } catch (RuntimeException e) {
+            subscribers.remove(subscriber);
+            throw e;
+        }
+        synchronized (subscriber) {
+            if (initial.resync()) {
+                enqueue(subscriber, RESYNC);
+            }
+            initial.events().forEach(state -> enqueue(subscriber, state));
+            subscriber.pending().stream()
+                    .filter(transition -> transition.getSeq() > initial.throughSeq())
+                    .forEach(transition -> enqueue(subscriber, transition));
+            subscriber.pending().clear();
+            subscriber.started().set(true);
+        }
+        schedule(subscriber);
+        return Optional.of(subscriber.emitter());
+    }
+
+    /*Empty for changes that don't touch availability*/
+    public static Optional<BookAvailabilityDto> availabilityOf(BookChangeDto change) {
+        if (change.getType() != BookChange.Type.BORROWED && change.getType() != BookChange.Type.RETURNED) {
+            return Optional.empty();
+        }
+        return Optional.of(new BookAvailabilityDto(change.getBookId(),
+                change.getType() == BookChange.Type.BORROWED, change.getSeq(), change.getOccurredAt()));
+    }
+
+    @EventListener
+    public void onRelayed(BookChangesRelayedEvent event) {
+        var transitions = event.changes().stream()
+                .flatMap(change -> availabilityOf(change).stream())
+                .toList();
+        if (transitions.isEmpty()) {
+            return;
+        }
+        for (var subscriber : subscribers) {
+            if (holdBack(subscriber, transitions)) {
+                continue;
+            }
+            var queued = false;
+            for (var transition : transitions) {
+                if (subscriber.wants(transition.getBookId())) {
+                    if (!enqueue(subscriber, transition)) {
+                        break;
+                    }
+                    queued = true;
+                }
+            }
+            if (queued) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "${books.availability.stream.heartbeat-ms}")
+    public void heartbeat() {
+        for (var subscriber : subscribers) {
+            if (enqueue(subscriber, HEARTBEAT)) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    /*
+     * A write blocked on a full TCP window only parks its own virtual thread, but the subscriber would
+     * keep collecting events behind it; past write-timeout it is dropped and the container's own socket
+     * timeout ends the write.
+     */
+    @Scheduled(fixedDelayString = "${books.availability.stream.write-timeout-ms}")
+    public void dropStalledWriters() {
+        var now = System.nanoTime();
+        for (var subscriber : subscribers) {
+            var writeStartedAt = subscriber.writeStartedAt().get();
+            if (writeStartedAt != 0 && now - writeStartedAt > writeTimeoutNanos && subscribers.remove(subscriber)) {
+                stalled.increment();
+                subscriber.queue().clear();
+                dispatcher.execute(() -> subscriber.emitter().completeWithError(new TimeoutException("SSE write timed out")));
+            }
+        }
+    }
+
+    /*True while the subscriber's backlog is still being loaded; its transitions wait in pending until then*/
+    private static boolean holdBack(Subscriber subscriber, List<BookAvailabilityDto> transitions) {
+        if (subscriber.started().get()) {
+            return false;
+        }
+        synchronized (subscriber) {
+            if (subscriber.started().get()) {
+                return false;
+            }
+            transitions.stream()
+                    .filter(transition -> subscriber.wants(transition.getBookId()))
+                    .forEach(subscriber.pending()::add);
+            return true;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter().complete());
+    }
+
+    private boolean enqueue(Subscriber subscriber, BookAvailabilityDto event) {
+        if (subscriber.queue().offer(event)) {
+            return true;
+        }
+        if (subscribers.remove(subscriber)) {
+            dropped.increment();
+            dispatcher.execute(() -> subscriber.emitter().complete());
+        }
+        return false;
+    }
+
+    /*At most one drain per subscriber is queued or running, so events keep their order*/
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining().compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            BookAvailabilityDto event;
+            while ((event = subscriber.queue().poll()) != null) {
+                subscriber.writeStartedAt().set(System.nanoTime());
+                subscriber.emitter().send(toSseEvent(event));
+                subscriber.writeStartedAt().set(0);
+            }
+        } catch (IOException | IllegalStateException e) {
+            /*Client gone or emitter already completed; the emitter callbacks are not guaranteed to fire*/
+            subscribers.remove(subscriber);
+            subscriber.queue().clear();
+            return;
+        } finally {
+            subscriber.writeStartedAt().set(0);
+            subscriber.draining().set(false);
+        }
+        /*An event offered between the last poll and the reset above would otherwise wait for the next one*/
+        if (!subscriber.queue().isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder toSseEvent(BookAvailabilityDto event) {
+        if (event == HEARTBEAT) {
+            return SseEmitter.event().comment("heartbeat");
+        }
+        if (event == RESYNC) {
+            /*The stream can't fill the gap since Last-Event-ID; the client has to reload what it shows*/
+            return SseEmitter.event().name("resync").data("");
+        }
+        var builder = SseEmitter.event().name("availability").data(event, MediaType.APPLICATION_JSON);
+        return event.getSeq() == null ? builder : builder.id(event.getSeq().toString());
+    }
+
+    /*
+     * What a new subscriber gets before live transitions: a snapshot or a replay of the change feed, and the
+     * seq it is complete up to. resync tells the client the stream can't make up for what it missed.
+     */
+    public record Backlog(List<BookAvailabilityDto> events, long throughSeq, boolean resync) {
+    }
+
+    /*
+     * An empty bookIds set means every book; writeStartedAt is the nanoTime of the send in progress, 0 when idle.
+     * pending is handed over under the subscriber's monitor and only used until started. No component
+     * compares by value except the immutable bookIds, so the record stays usable as a set element.
+     */
+    private record Subscriber(SseEmitter emitter, Set<Long> bookIds, ArrayBlockingQueue<BookAvailabilityDto> queue,
+                              AtomicBoolean draining, AtomicLong writeStartedAt, AtomicBoolean started,
+                              Queue<BookAvailabilityDto> pending) {
+
+        private Subscriber(SseEmitter emitter, Set<Long> bookIds, ArrayBlockingQueue<BookAvailabilityDto> queue) {
+            this(emitter, bookIds, queue, new AtomicBoolean(), new AtomicLong(), new AtomicBoolean(), new ConcurrentLinkedQueue<>());
+        }
+
+        private boolean wants(Long bookId) {
+            return bookIds.isEmpty() || bookIds.contains(bookId);
+        }
+    }
+}
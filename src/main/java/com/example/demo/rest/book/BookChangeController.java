@@ -0,0 +1,43 @@
+package com.example.demo.rest.book;
+
+import com.example.demo.model.dto.BookChangePageDto;
+import com.example.demo.service.BookChangeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+@RestController
+@RequestMapping("/v1/books/changes")
+public class BookChangeController {
+
+    @Autowired
+    private BookChangeService bookChangeService;
+    @Autowired
+    private BookChangeLongPoll bookChangeLongPoll;
+
+    /*
+     * Changes after "since", oldest first. With wait=true (the default) an up-to-date caller is parked
+     * until something changes, so a consumer can loop on lastSeq without hammering the database.
+     * A "since" older than the retained history gets resyncRequired instead of a page with a silent gap.
+     */
+    @GetMapping
+    public DeferredResult<BookChangePageDto> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                        @RequestParam(defaultValue = "100") int limit,
+                                                        @RequestParam(defaultValue = "true") boolean wait) {
+        if (!wait) {
+            var result = new DeferredResult<BookChangePageDto>();
+            result.setResult(bookChangeService.findSince(since, limit));
+            return result;
+        }
+        /*Registered before the query, so a relay tick in between can't be missed*/
+        var result = bookChangeLongPoll.register(since, limit);
+        var page = bookChangeService.findSince(since, limit);
+        if (!page.getContent().isEmpty()) {
+            result.setResult(page);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.rest.book;
+
+import com.example.demo.model.dto.BookChangeDto;
+import com.example.demo.model.dto.BookChangePageDto;
+import com.example.demo.service.BookChangeService;
+import com.example.demo.service.BookChangesRelayedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Parked GET /v1/books/changes requests. Each holds no thread, only a DeferredResult, until the relay
+ * announces changes past its "since" or the timeout answers it with an empty page.
+ */
+@Component
+public class BookChangeLongPoll {
+
+    @Autowired
+    private BookChangeService bookChangeService;
+    @Value("${books.changes.long-poll.timeout-ms}")
+    private long timeoutMs;
+    @Value("${books.changes.long-poll.max-waiters}")
+    private int maxWaiters;
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+
+    /*Past max-waiters the caller gets an empty page right away and simply polls again*/
+    public DeferredResult<BookChangePageDto> register(long since, int limit) {
+        var empty = new BookChangePageDto(List.of(), since);
+        var result = new DeferredResult<BookChangePageDto>(timeoutMs, empty);
+        if (waiters.size() >= maxWaiters) {
+            result.setResult(empty);
+            return result;
+        }
+        var waiter = new Waiter(since, Math.max(limit, 1), result);
+        waiters.add(waiter);
+        result.onCompletion(() -> waiters.remove(waiter));
+        return result;
+    }
+
+    @EventListener
+    public void onRelayed(BookChangesRelayedEvent event) {
+        var changes = event.changes();
+        var firstSeq = changes.getFirst().getSeq();
+        for (var waiter : waiters) {
+            if (waiter.since() >= changes.getLast().getSeq()) {
+                continue;
+            }
+            /*Caught-up waiters, the usual case, are answered from the event; stragglers go to the database*/
+            var page = waiter.since() >= firstSeq - 1
+                    ? fromEvent(changes, waiter.since(), waiter.limit())
+                    : bookChangeService.findSince(waiter.since(), waiter.limit());
+            waiter.result().setResult(page);
+        }
+    }
+
+    private static BookChangePageDto fromEvent(List<BookChangeDto> changes, long since, int limit) {
+        var content = changes.stream()
+                .filter(change -> change.getSeq() > since)
+                .limit(limit)
+                .toList();
+        return new BookChangePageDto(content, content.getLast().getSeq());
+    }
+
+    private record Waiter(long since, int limit, DeferredResult<BookChangePageDto> result) {
+    }
+}
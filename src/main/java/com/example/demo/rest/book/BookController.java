@@ -1,19 +1,37 @@
 package com.example.demo.rest.book;
 
+import com.example.demo.model.dto.BookBatchResultDto;
 import com.example.demo.model.dto.BookDto;
+import com.example.demo.model.dto.BookFilterDto;
+import com.example.demo.model.dto.BookPageDto;
+import com.example.demo.model.dto.BookSearchPageDto;
 import com.example.demo.service.BookService;
+import com.example.demo.service.BookVersionMismatchException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -24,39 +42,134 @@ public class BookController {
 
     @Autowired
     private BookService bookService;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @GetMapping
-    public List<BookDto> getAllBooks() {
-        return bookService.findAll();
+    public ResponseEntity<BookPageDto> getAllBooks(BookFilterDto filter,
+                                                   @RequestParam(required = false) Long after,
+                                                   @RequestParam(defaultValue = "50") int limit,
+                                                   WebRequest request) {
+        var page = bookService.findAll(filter, after, limit);
+        var eTag = BookETags.of(page);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(page);
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<BookSearchPageDto> searchBooks(@RequestParam String q,
+                                                         @RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "20") int size,
+                                                         @RequestParam(defaultValue = "false") boolean highlight) {
+        try {
+            return ResponseEntity.ok(bookService.search(q, page, size, highlight));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    /*Runs on the MVC async executor under spring.mvc.async.request-timeout, which is sized for a full export*/
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        StreamingResponseBody body = outputStream -> {
+            var writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (var books = writer.writeValuesAsArray(outputStream)) {
+                bookService.streamAll(book -> {
+                    try {
+                        books.write(book);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /*Served from the book cache, so a poll answered with 304 touches neither the database nor the serializer*/
     @GetMapping("/{id}")
-    public ResponseEntity<BookDto> getBookById(@PathVariable Long id) {
+    public ResponseEntity<BookDto> getBookById(@PathVariable Long id, WebRequest request) {
         return bookService.findById(id)
+                .map(book -> {
+                    var eTag = BookETags.of(book);
+                    if (request.checkNotModified(eTag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).<BookDto>build();
+                    }
+                    return ResponseEntity.ok().eTag(eTag).body(book);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/isbn/{isbn}")
+    public ResponseEntity<BookDto> getBookByIsbn(@PathVariable String isbn) {
+        return bookService.findByIsbn(isbn)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /*Idempotent create: the ISBN in the path wins over the one in the body*/
+    @PutMapping("/isbn/{isbn}")
+    public ResponseEntity<BookDto> upsertBookByIsbn(@PathVariable String isbn, @RequestBody BookDto book) {
+        try {
+            return ResponseEntity.ok(bookService.upsertByIsbn(isbn, book));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
     @PostMapping
-    public BookDto createBook(@Valid @RequestBody BookDto book) {
-        return bookService.save(book);
+    public ResponseEntity<BookDto> createBook(@Valid @RequestBody BookDto book) {
+        try {
+            return ResponseEntity.ok(bookService.save(book));
+        } catch (DataIntegrityViolationException e) {
+            /*The unique ISBN index did the duplicate check as part of the insert*/
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        }
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<BookDto> updateBook(@PathVariable Long id, @Valid @RequestBody BookDto bookDetails) {
-        return bookService.findById(id)
-                .map(book -> ResponseEntity.ok(bookService.save(bookDetails)))
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<BookDto> updateBook(@PathVariable Long id, @Valid @RequestBody BookDto bookDetails,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            return bookService.update(id, BookETags.expectedVersion(ifMatch), bookDetails)
+                    .map(book -> ResponseEntity.ok().eTag(BookETags.of(book)).body(book))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (BookVersionMismatchException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(null);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        }
+    }
+
+    /*Only the fields present in the body are written*/
+    @PatchMapping("/{id}")
+    public ResponseEntity<BookDto> patchBook(@PathVariable Long id, @RequestBody BookDto changes,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            return bookService.patch(id, BookETags.expectedVersion(ifMatch), changes)
+                    .map(book -> ResponseEntity.ok().eTag(BookETags.of(book)).body(book))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (BookVersionMismatchException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(null);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(null);
+        }
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Object> deleteBook(@PathVariable Long id) {
-        return bookService.findById(id)
-                .map(book -> {
-                    bookService.deleteById(id);
-                    return ResponseEntity.ok().build();
-                })
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Object> deleteBook(@PathVariable Long id,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            return bookService.deleteById(id, BookETags.expectedVersion(ifMatch))
+                    ? ResponseEntity.ok().build()
+                    : ResponseEntity.notFound().build();
+        } catch (BookVersionMismatchException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
     }
 
     @PostMapping("/borrow/{id}")
@@ -76,4 +189,22 @@ public class BookController {
             return ResponseEntity.badRequest().body(null);
         }
     }
+
+    @PostMapping("/borrow:batch")
+    public ResponseEntity<List<BookBatchResultDto>> borrowBooks(@RequestBody List<Long> ids) {
+        try {
+            return ResponseEntity.ok(bookService.borrowBooks(ids));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @PostMapping("/return:batch")
+    public ResponseEntity<List<BookBatchResultDto>> returnBooks(@RequestBody List<Long> ids) {
+        try {
+            return ResponseEntity.ok(bookService.returnBooks(ids));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
 }
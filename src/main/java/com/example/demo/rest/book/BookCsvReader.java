@@ -0,0 +1,103 @@
+package com.example.demo.rest.book;
+
+import com.example.demo.model.dto.BookDto;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/*Reads "title,author,isbn,category" rows one line at a time; an optional header row is skipped*/
+class BookCsvReader implements Iterator<BookDto>, Closeable {
+
+    private static final String HEADER = "title,author,isbn,category";
+    private static final int COLUMNS = 4;
+
+    private final BufferedReader reader;
+    private String nextLine;
+    private long lineNumber;
+
+    BookCsvReader(InputStream inputStream) {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        this.nextLine = readLine();
+        if (nextLine != null && nextLine.replace(" ", "").equalsIgnoreCase(HEADER)) {
+            this.nextLine = readLine();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextLine != null;
+    }
+
+    @Override
+    public BookDto next() {
+        if (nextLine == null) {
+            throw new NoSuchElementException();
+        }
+        var columns = split(nextLine);
+        if (columns.size() != COLUMNS) {
+            throw new IllegalArgumentException("Expected " + COLUMNS + " columns at line " + lineNumber);
+        }
+        var book = new BookDto();
+        book.setTitle(columns.get(0));
+        book.setAuthor(columns.get(1));
+        book.setIsbn(columns.get(2));
+        book.setCategory(columns.get(3));
+        nextLine = readLine();
+        return book;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String readLine() {
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+            } while (line != null && line.isBlank());
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<String> split(String line) {
+        var columns = new ArrayList<String>(COLUMNS);
+        var column = new StringBuilder();
+        var quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    column.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    column.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(column.toString().trim());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(column.toString().trim());
+        return columns;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.rest.book;
+
+import com.example.demo.model.dto.BookDto;
+import com.example.demo.model.dto.BookPageDto;
+import com.example.demo.service.BookVersionMismatchException;
+
+/*ETags derived from the book version column, so they cost nothing to compute and never need the response body*/
+final class BookETags {
+
+    private BookETags() {
+    }
+
+    static String of(BookDto book) {
+        return "\"" + book.getVersion() + "\"";
+    }
+
+    /*Weak: it says the page holds the same books at the same versions, not that the bytes are identical*/
+    static String of(BookPageDto page) {
+        long hash = 17;
+        for (var book : page.getContent()) {
+            hash = 31 * hash + book.getId();
+            hash = 31 * hash + (book.getVersion() == null ? 0 : book.getVersion());
+        }
+        hash = 31 * hash + (page.getNextCursor() == null ? 0 : page.getNextCursor());
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    /*Version the client expects, or null when the write is unconditional (no header or "*")*/
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        var tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            /*An entity tag we never issued can't match the current one*/
+            throw new BookVersionMismatchException("If-Match does not match the current version");
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.rest.book;
+
+import com.example.demo.model.dto.BookDto;
+import com.example.demo.model.dto.BookImportResultDto;
+import com.example.demo.service.BookService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/*Mapped under /v1 because "/v1/books:bulk" is not a sub-path of BookController's "/v1/books"*/
+@RestController
+@RequestMapping("/v1")
+public class BookImportController {
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PostMapping(value = "/books:bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BookImportResultDto> importNdjson(InputStream body) throws IOException {
+        try (MappingIterator<BookDto> books = objectMapper.readerFor(BookDto.class).readValues(body)) {
+            return importBooks(books);
+        }
+    }
+
+    @PostMapping(value = "/books:bulk", consumes = "text/csv")
+    public ResponseEntity<BookImportResultDto> importCsv(InputStream body) throws IOException {
+        try (var books = new BookCsvReader(body)) {
+            return importBooks(books);
+        }
+    }
+
+    private ResponseEntity<BookImportResultDto> importBooks(Iterator<BookDto> books) {
+        try {
+            return ResponseEntity.ok(new BookImportResultDto(bookService.importBooks(books)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+}
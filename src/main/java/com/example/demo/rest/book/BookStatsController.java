@@ -0,0 +1,22 @@
+package com.example.demo.rest.book;
+
+import com.example.demo.model.dto.BookStatsDto;
+import com.example.demo.service.BookStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/v1/books/stats")
+public class BookStatsController {
+
+    @Autowired
+    private BookStatsService bookStatsService;
+
+    /*Read from in-memory counters; never scans the books table*/
+    @GetMapping
+    public BookStatsDto getStats() {
+        return bookStatsService.getStats();
+    }
+}
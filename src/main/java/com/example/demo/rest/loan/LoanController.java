@@ -0,0 +1,54 @@
+package com.example.demo.rest.loan;
+
+import com.example.demo.model.dto.LoanPageDto;
+import com.example.demo.service.LoanService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/v1")
+public class LoanController {
+
+    @Autowired
+    private LoanService loanService;
+
+    /*Who else borrowed a book is for admins only, as on GET /v1/loans; other callers see just their own names*/
+    @GetMapping("/books/{id}/loans")
+    public LoanPageDto getBookLoans(@PathVariable Long id,
+                                    @RequestParam(required = false) Instant before,
+                                    @RequestParam(required = false) Long beforeId,
+                                    @RequestParam(defaultValue = "50") int limit,
+                                    Authentication authentication) {
+        var page = loanService.findByBook(id, before, beforeId, limit);
+        if (!isAdmin(authentication)) {
+            var self = authentication == null ? null : authentication.getName();
+            page.getContent().stream()
+                    .filter(loan -> !loan.getUsername().equals(self))
+                    .forEach(loan -> loan.setUsername(null));
+        }
+        return page;
+    }
+
+    /*Users can read their own history, admins anyone's*/
+    @GetMapping("/loans")
+    @PreAuthorize("hasRole('ADMIN') or #user == authentication.name")
+    public LoanPageDto getUserLoans(@RequestParam String user,
+                                    @RequestParam(required = false) Instant before,
+                                    @RequestParam(required = false) Long beforeId,
+                                    @RequestParam(defaultValue = "50") int limit) {
+        return loanService.findByUser(user, before, beforeId, limit);
+    }
+
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.service;
+
+import com.example.demo.model.BookChange;
+import com.example.demo.model.dto.BookChangePageDto;
+
+import java.time.Instant;
+import java.util.Collection;
+
+public interface BookChangeService {
+    void record(Long bookId, BookChange.Type type);
+    void recordAll(Collection<Long> bookIds, BookChange.Type type);
+    int sequencePending(int batchSize);
+    long lastSeq();
+    BookChangePageDto findSince(long since, int limit);
+    int purgeBefore(Instant cutoff);
+}
@@ -0,0 +1,9 @@
+package com.example.demo.service;
+
+import com.example.demo.model.dto.BookChangeDto;
+
+import java.util.List;
+
+/*Published by BookChangeRelay with changes in seq order, contiguous and never repeated on this node*/
+public record BookChangesRelayedEvent(List<BookChangeDto> changes) {
+}
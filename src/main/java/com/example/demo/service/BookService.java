@@ -1,14 +1,32 @@
 package com.example.demo.service;
 
+import com.example.demo.model.dto.BookBatchResultDto;
 import com.example.demo.model.dto.BookDto;
+import com.example.demo.model.dto.BookFilterDto;
+import com.example.demo.model.dto.BookPageDto;
+import com.example.demo.model.dto.BookSearchPageDto;
+
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
-    List<BookDto> findAll();
+    BookPageDto findAll(BookFilterDto filter, Long after, int limit);
+    void streamAll(Consumer<BookDto> consumer);
+    BookSearchPageDto search(String query, int page, int size, boolean highlight);
     Optional<BookDto> findById(Long id);
+    List<BookDto> findCurrent(Collection<Long> ids);
+    Optional<BookDto> findByIsbn(String isbn);
     BookDto save(BookDto book);
-    void deleteById(Long id);
+    BookDto upsertByIsbn(String isbn, BookDto book);
+    Optional<BookDto> update(Long id, Long expectedVersion, BookDto book);
+    Optional<BookDto> patch(Long id, Long expectedVersion, BookDto changes);
+    boolean deleteById(Long id, Long expectedVersion);
     BookDto borrowBook(Long id);
     BookDto returnBook(Long id);
+    List<BookBatchResultDto> borrowBooks(Collection<Long> ids);
+    List<BookBatchResultDto> returnBooks(Collection<Long> ids);
+    long importBooks(Iterator<BookDto> books);
 }
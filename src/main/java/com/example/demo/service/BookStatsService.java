@@ -0,0 +1,13 @@
+package com.example.demo.service;
+
+import com.example.demo.model.dto.BookStatsDto;
+
+public interface BookStatsService {
+    BookStatsDto getStats();
+    void recordCreated(String category);
+    void recordBorrowed(String category, boolean borrowed);
+    void recordDeleted(String category, boolean borrowed);
+    void recordCategoryChanged(String from, String to, boolean borrowed);
+    void requestReconcile();
+    void reconcile();
+}
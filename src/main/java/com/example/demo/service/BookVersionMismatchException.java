@@ -0,0 +1,8 @@
+package com.example.demo.service;
+
+/*The book exists but is no longer at the version the client sent in If-Match*/
+public class BookVersionMismatchException extends RuntimeException {
+    public BookVersionMismatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.service;
+
+import com.example.demo.model.dto.LoanPageDto;
+
+import java.time.Instant;
+
+public interface LoanService {
+    LoanPageDto findByBook(Long bookId, Instant before, Long beforeId, int limit);
+    LoanPageDto findByUser(String username, Instant before, Long beforeId, int limit);
+}
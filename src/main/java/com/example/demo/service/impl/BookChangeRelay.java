@@ -0,0 +1,69 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.service.BookChangeService;
+import com.example.demo.service.BookChangesRelayedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/*
+ * Drains the outbox: sequences committed changes in batches, then publishes everything past the last
+ * seq this node has announced, including changes another node's relay sequenced.
+ */
+@Component
+public class BookChangeRelay {
+
+    /*Bounds one tick under a write burst; whatever is left goes on the next tick*/
+    private static final int MAX_BATCHES_PER_TICK = 20;
+
+    @Autowired
+    private BookChangeService bookChangeService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Value("${books.changes.relay.batch-size}")
+    private int batchSize;
+    @Value("${books.changes.retention}")
+    private Duration retention;
+
+    /*fixedDelay runs never overlap, so this needs no synchronization*/
+    private long lastPublishedSeq = -1;
+
+    @Scheduled(fixedDelayString = "${books.changes.relay.interval-ms}")
+    public void relay() {
+        if (lastPublishedSeq < 0) {
+            /*Announce only what happens from now on; history is available through the changes endpoint*/
+            lastPublishedSeq = bookChangeService.lastSeq();
+        }
+        for (int i = 0; i < MAX_BATCHES_PER_TICK; i++) {
+            if (bookChangeService.sequencePending(batchSize) < batchSize) {
+                break;
+            }
+        }
+        for (int i = 0; i < MAX_BATCHES_PER_TICK; i++) {
+            var page = bookChangeService.findSince(lastPublishedSeq, batchSize);
+            if (page.isResyncRequired()) {
+                /*This node fell behind the retention purge; what it missed can't be announced any more*/
+                lastPublishedSeq = page.getLastSeq();
+                continue;
+            }
+            if (page.getContent().isEmpty()) {
+                break;
+            }
+            eventPublisher.publishEvent(new BookChangesRelayedEvent(page.getContent()));
+            lastPublishedSeq = page.getLastSeq();
+            if (page.getContent().size() < batchSize) {
+                break;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${books.changes.retention-cron}")
+    public void purge() {
+        bookChangeService.purgeBefore(Instant.now().minus(retention));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.BookChange;
+import com.example.demo.model.BookChangeCursor;
+import com.example.demo.model.dto.BookChangePageDto;
+import com.example.demo.model.jpa.repository.BookChangeCursorRepository;
+import com.example.demo.model.jpa.repository.BookChangeRepository;
+import com.example.demo.service.BookChangeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Service
+@Transactional
+public class BookChangeServiceImpl implements BookChangeService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private BookChangeRepository bookChangeRepository;
+    @Autowired
+    private BookChangeCursorRepository bookChangeCursorRepository;
+
+    /*MANDATORY: an outbox row only makes sense inside the transaction of the change it describes*/
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long bookId, BookChange.Type type) {
+        bookChangeRepository.save(new BookChange(bookId, type, Instant.now()));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(Collection<Long> bookIds, BookChange.Type type) {
+        var now = Instant.now();
+        bookChangeRepository.saveAll(bookIds.stream()
+                .map(bookId -> new BookChange(bookId, type, now))
+                .toList());
+    }
+
+    /*
+     * Hands out seqs to committed changes under the cursor row lock, so concurrent relays queue up
+     * instead of interleaving, and a consumer never sees a seq below one it has already read.
+     */
+    @Override
+    public int sequencePending(int batchSize) {
+        var cursor = bookChangeCursorRepository.findForUpdate(BookChangeCursor.ID)
+                .orElseGet(() -> bookChangeCursorRepository.save(new BookChangeCursor(BookChangeCursor.ID, 0L, 0L)));
+        var pending = bookChangeRepository.findUnsequenced(Limit.of(batchSize));
+        var seq = cursor.getLastSeq();
+        for (var change : pending) {
+            change.setSeq(++seq);
+        }
+        cursor.setLastSeq(seq);
+        return pending.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long lastSeq() {
+        return bookChangeCursorRepository.findById(BookChangeCursor.ID)
+                .map(BookChangeCursor::getLastSeq)
+                .orElse(0L);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookChangePageDto findSince(long since, int limit) {
+        var changes = bookChangeRepository.findSequencedAfter(since, Limit.of(Math.clamp(limit, 1, MAX_PAGE_SIZE)));
+        /*Seqs are handed out without gaps, so a page that starts right after "since" can't have lost anything*/
+        if (changes.isEmpty() || changes.getFirst().getSeq() != since + 1) {
+            var cursor = bookChangeCursorRepository.findById(BookChangeCursor.ID);
+            if (cursor.isPresent() && since < cursor.get().getPurgedThroughSeq()) {
+                return new BookChangePageDto(List.of(), cursor.get().getLastSeq(), true);
+            }
+        }
+        return new BookChangePageDto(changes, changes.isEmpty() ? since : changes.getLast().getSeq());
+    }
+
+    /*
+     * Deletes a prefix of the seqs, up to the newest one older than the cutoff, so the retained history stays
+     * gap-free. A few changes that committed out of occurredAt order may go a little early.
+     */
+    @Override
+    public int purgeBefore(Instant cutoff) {
+        var cursor = bookChangeCursorRepository.findForUpdate(BookChangeCursor.ID);
+        var through = bookChangeRepository.findLastSeqBefore(cutoff);
+        if (cursor.isEmpty() || through == null || through <= cursor.get().getPurgedThroughSeq()) {
+            return 0;
+        }
+        cursor.get().setPurgedThroughSeq(through);
+        return bookChangeRepository.deleteSequencedThrough(through);
+    }
+}
@@ -1,67 +1,427 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.config.CacheConfig;
+import com.example.demo.config.datasource.ReplicaRoutingDataSource;
 import com.example.demo.mapper.BookMapper;
+import com.example.demo.model.Book;
+import com.example.demo.model.BookChange;
+import com.example.demo.model.Loan;
+import com.example.demo.model.dto.BookBatchResultDto;
 import com.example.demo.model.dto.BookDto;
+import com.example.demo.model.dto.BookFilterDto;
+import com.example.demo.model.dto.BookPageDto;
+import com.example.demo.model.dto.BookSearchHitDto;
+import com.example.demo.model.dto.BookSearchPageDto;
+import com.example.demo.model.jpa.projection.BookCategoryView;
 import com.example.demo.model.jpa.repository.BookRepository;
+import com.example.demo.model.jpa.repository.LoanRepository;
+import com.example.demo.model.jpa.specification.BookSpecifications;
+import com.example.demo.service.BookChangeService;
 import com.example.demo.service.BookService;
-import jakarta.transaction.Transactional;
+import com.example.demo.service.BookStatsService;
+import com.example.demo.service.BookVersionMismatchException;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
+@Timed("book.service")
 public class BookServiceImpl implements BookService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    /*Ranked results can't use a keyset, so deep offsets are cut off instead of scanning ever further*/
+    private static final int MAX_SEARCH_RESULTS = 10_000;
+
     @Autowired
     private BookMapper bookMapper;
     @Autowired
     private BookRepository bookRepository;
+    @Autowired
+    private LoanRepository loanRepository;
+    /*Every write below records an outbox row in the same transaction, see BookChangeService*/
+    @Autowired
+    private BookChangeService bookChangeService;
+    @Autowired
+    private BookStatsService bookStatsService;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private CacheManager cacheManager;
+    @Value("${books.import.batch-size}")
+    private int importBatchSize;
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookPageDto findAll(BookFilterDto filter, Long after, int limit) {
+        var pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        var cursor = after == null ? 0L : after;
+        /*One extra row tells us whether there is a next page without a count query*/
+        var books = hasCriteria(filter)
+                ? bookRepository.findDtos(
+                        BookSpecifications.matching(filter).and(BookSpecifications.idAfter(cursor)), pageSize + 1)
+                : bookRepository.findPageAfter(cursor, Limit.of(pageSize + 1));
+        var hasNext = books.size() > pageSize;
+        var content = hasNext ? books.subList(0, pageSize) : books;
+        return new BookPageDto(content, hasNext ? content.getLast().getId() : null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<BookDto> consumer) {
+        try (var books = bookRepository.streamAll()) {
+            books.forEach(consumer);
+        }
+    }
 
     @Override
-    public List<BookDto> findAll() {
-       return bookRepository.findAll().stream()
-                .map(bookMapper::toDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public BookSearchPageDto search(String query, int page, int size, boolean highlight) {
+        if (query == null || query.isBlank()) {
+            throw new RuntimeException("Search query must not be empty");
+        }
+        var pageSize = Math.clamp(size, 1, MAX_SEARCH_PAGE_SIZE);
+        var pageNumber = Math.max(page, 0);
+        if ((long) pageNumber * pageSize + pageSize > MAX_SEARCH_RESULTS) {
+            throw new RuntimeException("Search results are limited to the first " + MAX_SEARCH_RESULTS + " matches");
+        }
+        var offset = pageNumber * pageSize;
+        var rows = highlight
+                ? bookRepository.searchHighlighted(query, pageSize + 1, offset)
+                : bookRepository.search(query, pageSize + 1, offset);
+        var content = rows.stream()
+                .limit(pageSize)
+                .map(row -> new BookSearchHitDto(bookMapper.toDto(row), row.getScore(), row.getHighlight()))
+                .toList();
+        return new BookSearchPageDto(content, pageNumber, rows.size() > pageSize);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.BOOKS_CACHE, unless = "#result == null")
     public Optional<BookDto> findById(Long id) {
-        return bookRepository.findById(id).map(bookMapper::toDto);
+        /*What is loaded here is served to every user until evicted, so it must not be a lagging replica's copy*/
+        return ReplicaRoutingDataSource.readFromPrimary(() -> bookRepository.findDtoById(id));
+    }
+
+    /*Neither the cache nor the replica: callers need the rows as they are now, not as of the last load*/
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookDto> findCurrent(Collection<Long> ids) {
+        return ids.isEmpty()
+                ? List.of()
+                : ReplicaRoutingDataSource.readFromPrimary(() -> bookRepository.findDtosByIdIn(ids));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Optional<BookDto> findByIsbn(String isbn) {
+        return bookRepository.findByIsbn(isbn);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#result.id")
     public BookDto save(BookDto bookDto) {
         var book = bookMapper.toEntity(bookDto);
         book.setBorrowed(false);
-        return bookMapper.toDto(bookRepository.save(book));
+        var saved = bookRepository.save(book);
+        bookChangeService.record(saved.getId(), BookChange.Type.CREATED);
+        bookStatsService.recordCreated(saved.getCategory());
+        return bookMapper.toDto(saved);
     }
 
     @Override
-    public void deleteById(Long id) {
-        bookRepository.deleteById(id);
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#result.id")
+    public BookDto upsertByIsbn(String isbn, BookDto bookDto) {
+        if (bookDto.getTitle() == null || bookDto.getAuthor() == null || bookDto.getCategory() == null) {
+            throw new RuntimeException("Book is missing required fields");
+        }
+        var updated = bookRepository.updateByIsbn(isbn, bookDto.getTitle(), bookDto.getAuthor(), bookDto.getCategory());
+        if (updated.isPresent()) {
+            var book = updated.get();
+            bookChangeService.record(book.getId(), BookChange.Type.UPDATED);
+            if (!Objects.equals(book.getPreviousCategory(), book.getCategory())) {
+                bookStatsService.recordCategoryChanged(book.getPreviousCategory(), book.getCategory(), book.getBorrowed());
+            }
+            return bookMapper.toDto(book);
+        }
+        /*Nothing updated: either the ISBN is new or the row already holds these values*/
+        var current = bookRepository.findByIsbn(isbn);
+        if (current.isPresent()) {
+            return current.get();
+        }
+        var newId = nextBookId();
+        var upserted = bookRepository.upsertByIsbn(newId, isbn,
+                bookDto.getTitle(), bookDto.getAuthor(), bookDto.getCategory());
+        if (upserted.isEmpty()) {
+            /*Another transaction inserted the same values in between*/
+            return bookRepository.findByIsbn(isbn).orElseThrow();
+        }
+        var book = upserted.get();
+        /*The fresh id only ends up in the row when the statement inserted it*/
+        var inserted = newId.equals(book.getId());
+        bookChangeService.record(book.getId(), inserted ? BookChange.Type.CREATED : BookChange.Type.UPDATED);
+        if (inserted) {
+            bookStatsService.recordCreated(book.getCategory());
+        } else {
+            /*Another transaction inserted the ISBN in between, so the category it had is unknown here*/
+            bookStatsService.requestReconcile();
+        }
+        return bookMapper.toDto(book);
+    }
+
+    @Override
+    public long importBooks(Iterator<BookDto> books) {
+        long imported = 0;
+        while (books.hasNext()) {
+            var bookDto = books.next();
+            if (bookDto.getTitle() == null || bookDto.getAuthor() == null
+                    || bookDto.getIsbn() == null || bookDto.getCategory() == null) {
+                throw new RuntimeException("Book #" + (imported + 1) + " is missing required fields");
+            }
+            var book = bookMapper.toEntity(bookDto);
+            book.setId(null);
+            book.setBorrowed(false);
+            entityManager.persist(book);
+            bookChangeService.record(book.getId(), BookChange.Type.CREATED);
+            /*Flush a full JDBC batch and drop it from the persistence context so memory stays flat*/
+            if (++imported % importBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        if (imported > 0) {
+            bookStatsService.requestReconcile();
+        }
+        return imported;
+    }
+
+    /*The row count of the UPDATE doubles as the existence check; only a conditional miss needs a second look*/
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
+    public Optional<BookDto> update(Long id, Long expectedVersion, BookDto bookDto) {
+        var updated = bookRepository.updateInCategory(id, expectedVersion, bookDto.getTitle(), bookDto.getAuthor(),
+                bookDto.getIsbn(), bookDto.getCategory()) > 0
+                || updateMovingCategory(id, expectedVersion, bookDto);
+        if (!updated) {
+            rejectIfStale(id, expectedVersion);
+            return Optional.empty();
+        }
+        bookChangeService.record(id, BookChange.Type.UPDATED);
+        return bookRepository.findDtoById(id);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
+    public Optional<BookDto> patch(Long id, Long expectedVersion, BookDto changes) {
+        if (changes.getTitle() == null && changes.getAuthor() == null
+                && changes.getIsbn() == null && changes.getCategory() == null) {
+            throw new RuntimeException("Nothing to update");
+        }
+        var patched = changes.getCategory() == null
+                ? bookRepository.patch(id, expectedVersion, changes) > 0
+                : bookRepository.patchInCategory(id, expectedVersion, changes) > 0
+                        || patchMovingCategory(id, expectedVersion, changes);
+        if (!patched) {
+            rejectIfStale(id, expectedVersion);
+            return Optional.empty();
+        }
+        bookChangeService.record(id, BookChange.Type.UPDATED);
+        return bookRepository.findDtoById(id);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
+    public boolean deleteById(Long id, Long expectedVersion) {
+        /*The lock keeps category and borrowed as read here until the row is gone*/
+        var removed = bookRepository.lockCategoryById(id);
+        if (removed.isPresent() && bookRepository.removeById(id, expectedVersion) > 0) {
+            bookChangeService.record(id, BookChange.Type.DELETED);
+            bookStatsService.recordDeleted(removed.get().getCategory(), removed.get().getBorrowed());
+            return true;
+        }
+        rejectIfStale(id, expectedVersion);
+        return false;
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
     public BookDto borrowBook(Long id) {
-        var book = bookRepository.findById(id).orElseThrow(() -> new RuntimeException("Book not found"));
-        if (book.getBorrowed()) {
-            throw new RuntimeException("Book is already borrowed");
+        if (bookRepository.markBorrowed(id) == 0) {
+            throw new RuntimeException(bookRepository.existsById(id) ? "Book is already borrowed" : "Book not found");
         }
-        book.setBorrowed(true);
-        return bookMapper.toDto(bookRepository.save(book));
+        loanRepository.save(new Loan(id, currentUsername(), Instant.now()));
+        bookChangeService.record(id, BookChange.Type.BORROWED);
+        var book = loadBook(id);
+        bookStatsService.recordBorrowed(book.getCategory(), true);
+        return book;
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
     public BookDto returnBook(Long id) {
-        var book = bookRepository.findById(id).orElseThrow(() -> new RuntimeException("Book not found"));
-        if (!book.getBorrowed()) {
-            throw new RuntimeException("Book is not borrowed");
+        if (bookRepository.markReturned(id) == 0) {
+            throw new RuntimeException(bookRepository.existsById(id) ? "Book is not borrowed" : "Book not found");
         }
-        book.setBorrowed(false);
-        return bookMapper.toDto(bookRepository.save(book));
+        loanRepository.closeOpenLoans(List.of(id), Instant.now());
+        bookChangeService.record(id, BookChange.Type.RETURNED);
+        var book = loadBook(id);
+        bookStatsService.recordBorrowed(book.getCategory(), false);
+        return book;
+    }
+
+    @Override
+    public List<BookBatchResultDto> borrowBooks(Collection<Long> ids) {
+        return changeBorrowed(ids, true);
+    }
+
+    @Override
+    public List<BookBatchResultDto> returnBooks(Collection<Long> ids) {
+        return changeBorrowed(ids, false);
+    }
+
+    /*Two statements per batch whatever its size: lock the requested rows, then flip the ones that need it*/
+    private List<BookBatchResultDto> changeBorrowed(Collection<Long> ids, boolean borrowed) {
+        var requested = new LinkedHashSet<Long>();
+        ids.stream().filter(Objects::nonNull).forEach(requested::add);
+        if (requested.isEmpty() || requested.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("Batch must contain between 1 and " + MAX_BATCH_SIZE + " ids");
+        }
+
+        var locked = bookRepository.findAllForUpdate(requested);
+        var current = locked.stream()
+                .collect(Collectors.toMap(Book::getId, Book::getBorrowed));
+        var changing = locked.stream()
+                .filter(book -> book.getBorrowed() != borrowed)
+                .toList();
+        var toChange = changing.stream()
+                .map(Book::getId)
+                .toList();
+        if (!toChange.isEmpty()) {
+            bookRepository.updateBorrowed(toChange, borrowed);
+            recordLoans(toChange, borrowed);
+            bookChangeService.recordAll(toChange, borrowed ? BookChange.Type.BORROWED : BookChange.Type.RETURNED);
+            changing.forEach(book -> bookStatsService.recordBorrowed(book.getCategory(), borrowed));
+            evictBooks(toChange);
+        }
+
+        return requested.stream()
+                .map(id -> new BookBatchResultDto(id, batchStatus(current.get(id), borrowed)))
+                .toList();
+    }
+
+    /*New loans go out as one JDBC batch at flush (pooled LOAN_SEQ, hibernate.jdbc.batch_size); returns are one UPDATE*/
+    private void recordLoans(Collection<Long> bookIds, boolean borrowed) {
+        var now = Instant.now();
+        if (borrowed) {
+            var username = currentUsername();
+            loanRepository.saveAll(bookIds.stream()
+                    .map(bookId -> new Loan(bookId, username, now))
+                    .toList());
+        } else {
+            loanRepository.closeOpenLoans(bookIds, now);
+        }
+    }
+
+    /*
+     * Edits try the statement that keeps the category first, so the common case stays one UPDATE. A miss means
+     * the category changes (or the version is stale, or the book is gone): only then is the row locked to learn
+     * which counters the book leaves.
+     */
+    private boolean updateMovingCategory(Long id, Long expectedVersion, BookDto bookDto) {
+        var previous = bookRepository.lockCategoryById(id);
+        if (previous.isEmpty() || bookRepository.update(id, expectedVersion, bookDto.getTitle(), bookDto.getAuthor(),
+                bookDto.getIsbn(), bookDto.getCategory()) == 0) {
+            return false;
+        }
+        recordCategoryChange(previous.get(), bookDto.getCategory());
+        return true;
+    }
+
+    private boolean patchMovingCategory(Long id, Long expectedVersion, BookDto changes) {
+        var previous = bookRepository.lockCategoryById(id);
+        if (previous.isEmpty() || bookRepository.patch(id, expectedVersion, changes) == 0) {
+            return false;
+        }
+        recordCategoryChange(previous.get(), changes.getCategory());
+        return true;
+    }
+
+    /*A concurrent edit may have moved the book to this category between the two statements*/
+    private void recordCategoryChange(BookCategoryView previous, String category) {
+        if (!Objects.equals(previous.getCategory(), category)) {
+            bookStatsService.recordCategoryChanged(previous.getCategory(), category, previous.getBorrowed());
+        }
+    }
+
+    private static String currentUsername() {
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "anonymous" : authentication.getName();
+    }
+
+    /*A conditional write that touched nothing either lost to a concurrent change or hit a missing book*/
+    private void rejectIfStale(Long id, Long expectedVersion) {
+        if (expectedVersion != null && bookRepository.existsById(id)) {
+            throw new BookVersionMismatchException("Book has been modified since version " + expectedVersion);
+        }
+    }
+
+    private static boolean hasCriteria(BookFilterDto filter) {
+        return filter != null && (filter.getAuthor() != null || filter.getCategory() != null
+                || filter.getTitle() != null || filter.getBorrowed() != null);
+    }
+
+    private static BookBatchResultDto.Status batchStatus(Boolean current, boolean borrowed) {
+        if (current == null) {
+            return BookBatchResultDto.Status.NOT_FOUND;
+        }
+        if (current == borrowed) {
+            return borrowed ? BookBatchResultDto.Status.ALREADY_BORROWED : BookBatchResultDto.Status.NOT_BORROWED;
+        }
+        return borrowed ? BookBatchResultDto.Status.BORROWED : BookBatchResultDto.Status.RETURNED;
+    }
+
+    private void evictBooks(Collection<Long> ids) {
+        var cache = cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        if (cache != null) {
+            ids.forEach(cache::evict);
+        }
+    }
+
+    /*Takes an id from the same pooled BOOK_SEQ allocator Hibernate uses for persist, so native inserts can't collide with it*/
+    private Long nextBookId() {
+        var session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        var persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Book.class);
+        var generator = (BeforeExecutionGenerator) persister.getGenerator();
+        return (Long) generator.generate(session, null, null, EventType.INSERT);
+    }
+
+    private BookDto loadBook(Long id) {
+        return bookRepository.findDtoById(id)
+                .orElseThrow(() -> new RuntimeException("Book not found"));
     }
 }
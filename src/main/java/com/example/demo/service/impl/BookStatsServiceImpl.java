@@ -0,0 +1,148 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.dto.BookStatsDto;
+import com.example.demo.model.dto.CategoryStatsDto;
+import com.example.demo.model.jpa.repository.BookRepository;
+import com.example.demo.service.BookStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Available/borrowed counts per category, kept in LongAdders that writers bump after their transaction
+ * commits, so reading them costs O(categories). Only what the counters can't follow on their own (bulk
+ * imports, an upsert racing an insert, writes on other nodes, drift) is left to reconciling against a
+ * GROUP BY on the books table: early when requested, and every reconcile-interval in any case.
+ */
+@Service
+public class BookStatsServiceImpl implements BookStatsService {
+
+    /*ConcurrentHashMap keys can't be null*/
+    private static final String NO_CATEGORY = "";
+
+    @Autowired
+    private BookRepository bookRepository;
+    @Value("${books.stats.reconcile-interval}")
+    private Duration reconcileInterval;
+
+    private volatile Map<String, CategoryCounters> counters = new ConcurrentHashMap<>();
+    private volatile Instant reconciledAt;
+    private volatile boolean reconcileRequested = true;
+
+    @Override
+    public BookStatsDto getStats() {
+        if (reconciledAt == null) {
+            reconcile();
+        }
+        var categories = counters.entrySet().stream()
+                .map(entry -> new CategoryStatsDto(
+                        NO_CATEGORY.equals(entry.getKey()) ? null : entry.getKey(),
+                        Math.max(entry.getValue().available.sum(), 0),
+                        Math.max(entry.getValue().borrowed.sum(), 0)))
+                .filter(stats -> stats.getAvailable() + stats.getBorrowed() > 0)
+                .sorted(Comparator.comparing(CategoryStatsDto::getCategory, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+        return new BookStatsDto(categories,
+                categories.stream().mapToLong(CategoryStatsDto::getAvailable).sum(),
+                categories.stream().mapToLong(CategoryStatsDto::getBorrowed).sum(),
+                reconciledAt);
+    }
+
+    @Override
+    public void recordCreated(String category) {
+        afterCommit(() -> countersOf(category).available.increment());
+    }
+
+    @Override
+    public void recordBorrowed(String category, boolean borrowed) {
+        afterCommit(() -> {
+            var categoryCounters = countersOf(category);
+            categoryCounters.of(!borrowed).decrement();
+            categoryCounters.of(borrowed).increment();
+        });
+    }
+
+    @Override
+    public void recordDeleted(String category, boolean borrowed) {
+        afterCommit(() -> countersOf(category).of(borrowed).decrement());
+    }
+
+    @Override
+    public void recordCategoryChanged(String from, String to, boolean borrowed) {
+        afterCommit(() -> {
+            countersOf(from).of(borrowed).decrement();
+            countersOf(to).of(borrowed).increment();
+        });
+    }
+
+    @Override
+    public void requestReconcile() {
+        afterCommit(() -> reconcileRequested = true);
+    }
+
+    /*
+     * Writes that commit while the GROUP BY runs can land on the old counters and be lost, or be counted
+     * twice; either way the error is a handful of books until the next reconcile.
+     */
+    @Override
+    public synchronized void reconcile() {
+        reconcileRequested = false;
+        var fresh = new ConcurrentHashMap<String, CategoryCounters>();
+        for (var stats : bookRepository.countByCategory()) {
+            var categoryCounters = fresh.computeIfAbsent(keyOf(stats.getCategory()), key -> new CategoryCounters());
+            categoryCounters.available.add(stats.getAvailable());
+            categoryCounters.borrowed.add(stats.getBorrowed());
+        }
+        counters = fresh;
+        reconciledAt = Instant.now();
+    }
+
+    @Scheduled(fixedDelayString = "${books.stats.reconcile-check-ms}")
+    public void reconcileIfDue() {
+        if (reconcileRequested || reconciledAt == null
+                || reconciledAt.plus(reconcileInterval).isBefore(Instant.now())) {
+            reconcile();
+        }
+    }
+
+    private CategoryCounters countersOf(String category) {
+        return counters.computeIfAbsent(keyOf(category), key -> new CategoryCounters());
+    }
+
+    private static String keyOf(String category) {
+        return category == null ? NO_CATEGORY : category;
+    }
+
+    /*A rolled-back write must not move the counters*/
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class CategoryCounters {
+        private final LongAdder available = new LongAdder();
+        private final LongAdder borrowed = new LongAdder();
+
+        private LongAdder of(boolean borrowed) {
+            return borrowed ? this.borrowed : available;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+/*
+ * Keeps monthly partitions of the loan table (Postgres only, see changeset 8) created ahead of time,
+ * so inserts never land in loan_default. Creating a partition is idempotent, and the SQL only uses
+ * values computed here, never input.
+ */
+@Component
+@ConditionalOnProperty(name = "loans.partitions.enabled", havingValue = "true")
+public class LoanPartitionMaintainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanPartitionMaintainer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Value("${loans.partitions.months-ahead:2}")
+    private int monthsAhead;
+
+    private final Clock clock = Clock.systemUTC();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${loans.partitions.cron:0 0 3 * * *}", zone = "UTC")
+    public void createUpcomingPartitions() {
+        var month = YearMonth.now(clock);
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(month.plusMonths(i));
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        var from = month.atDay(1);
+        var to = month.plusMonths(1).atDay(1);
+        var name = String.format("loan_y%04dm%02d", month.getYear(), month.getMonthValue());
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF loan FOR VALUES FROM ('"
+                + bound(from) + "') TO ('" + bound(to) + "')");
+        logger.debug("Loan partition {} is in place", name);
+    }
+
+    private static String bound(LocalDate date) {
+        return date.atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+    }
+}
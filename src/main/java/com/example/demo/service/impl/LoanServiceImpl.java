@@ -0,0 +1,55 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.dto.LoanDto;
+import com.example.demo.model.dto.LoanPageDto;
+import com.example.demo.model.jpa.repository.LoanRepository;
+import com.example.demo.service.LoanService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Service
+@Transactional(readOnly = true)
+@Timed("loan.service")
+public class LoanServiceImpl implements LoanService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Override
+    public LoanPageDto findByBook(Long bookId, Instant before, Long beforeId, int limit) {
+        var pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        var limitPlusOne = Limit.of(pageSize + 1);
+        var loans = before == null
+                ? loanRepository.findByBook(bookId, limitPlusOne)
+                : loanRepository.findByBookBefore(bookId, before, beforeId, limitPlusOne);
+        return toPage(loans, pageSize);
+    }
+
+    @Override
+    public LoanPageDto findByUser(String username, Instant before, Long beforeId, int limit) {
+        var pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        var limitPlusOne = Limit.of(pageSize + 1);
+        var loans = before == null
+                ? loanRepository.findByUsername(username, limitPlusOne)
+                : loanRepository.findByUsernameBefore(username, before, beforeId, limitPlusOne);
+        return toPage(loans, pageSize);
+    }
+
+    /*Same keyset scheme as the book list: one extra row means there is another page*/
+    private static LoanPageDto toPage(List<LoanDto> loans, int pageSize) {
+        var hasNext = loans.size() > pageSize;
+        var content = hasNext ? loans.subList(0, pageSize) : loans;
+        if (!hasNext) {
+            return new LoanPageDto(content, null, null);
+        }
+        return new LoanPageDto(content, content.getLast().getBorrowedAt(), content.getLast().getId());
+    }
+}
@@ -2,13 +2,21 @@ package com.example.demo.rest;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
+import com.example.demo.config.auth.LoginAdmissionControl;
+import com.example.demo.config.auth.LoginRejectedException;
+import com.example.demo.config.jwt.TokenDenylist;
 import com.example.demo.config.jwt.util.JwtUtil;
+import com.example.demo.config.jwt.util.VerifiedToken;
 import com.example.demo.model.dto.AuthRequestDto;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,6 +37,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
 @WebMvcTest(AuthenticationController.class)
 @ExtendWith(MockitoExtension.class)
 public class AuthenticationControllerTest {
@@ -45,6 +58,12 @@ public class AuthenticationControllerTest {
     @MockBean
     private UserDetailsService userDetailsService;
 
+    @MockBean
+    private TokenDenylist tokenDenylist;
+
+    @MockBean
+    private LoginAdmissionControl loginAdmissionControl;
+
     @InjectMocks
     private AuthenticationController authenticationController;
 
@@ -62,6 +81,9 @@ public class AuthenticationControllerTest {
                 .authorities("ROLE_USER")
                 .build();
 
+        lenient().when(loginAdmissionControl.admit(any(), any(), any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+
         mockMvc = MockMvcBuilders.standaloneSetup(authenticationController).build();
     }
 
@@ -90,6 +112,37 @@ public class AuthenticationControllerTest {
                         .content(objectMapper.writeValueAsString(authRequest)))
                 .andExpect(status().isUnauthorized());
     }
-}
 
+    @Test
+    void authenticate_shouldReturnTooManyRequests_whenLoginIsNotAdmitted() throws Exception {
+        doThrow(new LoginRejectedException("Too many login attempts", Duration.ofMillis(1500)))
+                .when(loginAdmissionControl).admit(any(), any(), any());
+
+        mockMvc.perform(post("/v1/auth")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"));
+    }
+
+    @Test
+    void revoke_shouldDenylistCallersToken() throws Exception {
+        var verifiedToken = new VerifiedToken("jti", "testuser", new Date(), new Date(System.currentTimeMillis() + 60000),
+                List.of("ROLE_USER"));
+        when(jwtUtil.parseToken(eq("testtoken"))).thenReturn(verifiedToken);
+
+        mockMvc.perform(post("/v1/auth/revoke")
+                        .header("Authorization", "Bearer testtoken"))
+                .andExpect(status().isOk());
 
+        verify(tokenDenylist).revoke(verifiedToken);
+    }
+
+    @Test
+    void revoke_shouldReturnBadRequest_whenHeaderIsNotBearer() throws Exception {
+        mockMvc.perform(post("/v1/auth/revoke")
+                        .header("Authorization", "Basic dXNlcjp1c2Vy"))
+                .andExpect(status().isBadRequest());
+    }
+}
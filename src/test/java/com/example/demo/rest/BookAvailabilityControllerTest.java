@@ -0,0 +1,160 @@
+package com.example.demo.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyCollection;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.anySet;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.demo.model.BookChange;
+import com.example.demo.model.dto.BookAvailabilityDto;
+import com.example.demo.model.dto.BookChangeDto;
+import com.example.demo.model.dto.BookChangePageDto;
+import com.example.demo.model.dto.BookDto;
+import com.example.demo.rest.book.BookAvailabilityController;
+import com.example.demo.rest.book.BookAvailabilityHub;
+import com.example.demo.service.BookChangeService;
+import com.example.demo.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+@WebMvcTest(BookAvailabilityController.class)
+@ExtendWith(MockitoExtension.class)
+@EnableWebMvc
+public class BookAvailabilityControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BookService bookService;
+
+    @MockBean
+    private BookChangeService bookChangeService;
+
+    @MockBean
+    private BookAvailabilityHub bookAvailabilityHub;
+
+    @InjectMocks
+    private BookAvailabilityController bookAvailabilityController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(bookAvailabilityController).build();
+    }
+
+    @Test
+    void streamAvailability_shouldOpenWithSnapshotStampedWithSeq() throws Exception {
+        when(bookChangeService.lastSeq()).thenReturn(7L);
+        when(bookService.findCurrent(Set.of(1L, 2L))).thenReturn(List.of(
+                new BookDto(1L, "Test Book", "Test Author", "1234567890", null, true, 3L)));
+
+        var backlog = subscribe(Set.of(1L, 2L), get("/v1/books/availability/stream").param("ids", "1", "2"));
+
+        assertThat(backlog.throughSeq()).isEqualTo(7L);
+        assertThat(backlog.resync()).isFalse();
+        assertThat(backlog.events()).containsExactly(new BookAvailabilityDto(1L, true, 7L, null));
+        verify(bookService, never()).findById(anyLong());
+    }
+
+    @Test
+    void streamAvailability_shouldReplayTransitionsAfterLastEventId() throws Exception {
+        var occurredAt = Instant.parse("2026-10-01T10:00:00Z");
+        when(bookChangeService.findSince(5L, 500)).thenReturn(new BookChangePageDto(List.of(
+                new BookChangeDto(6L, 1L, BookChange.Type.BORROWED, occurredAt),
+                new BookChangeDto(7L, 2L, BookChange.Type.RETURNED, occurredAt),
+                new BookChangeDto(8L, 1L, BookChange.Type.UPDATED, occurredAt)), 8L));
+
+        var backlog = subscribe(Set.of(1L), get("/v1/books/availability/stream")
+                .param("ids", "1")
+                .header("Last-Event-ID", "5"));
+
+        assertThat(backlog.throughSeq()).isEqualTo(8L);
+        assertThat(backlog.events()).containsExactly(new BookAvailabilityDto(1L, true, 6L, occurredAt));
+        verify(bookService, never()).findCurrent(anyCollection());
+    }
+
+    @Test
+    void streamAvailability_shouldFallBackToSnapshot_whenReplayWasPurged() throws Exception {
+        when(bookChangeService.findSince(5L, 500)).thenReturn(new BookChangePageDto(List.of(), 40L, true));
+        when(bookChangeService.lastSeq()).thenReturn(40L);
+        when(bookService.findCurrent(Set.of(1L))).thenReturn(List.of(
+                new BookDto(1L, "Test Book", "Test Author", "1234567890", null, false, 3L)));
+
+        var backlog = subscribe(Set.of(1L), get("/v1/books/availability/stream")
+                .param("ids", "1")
+                .header("Last-Event-ID", "5"));
+
+        assertThat(backlog.throughSeq()).isEqualTo(40L);
+        assertThat(backlog.events()).containsExactly(new BookAvailabilityDto(1L, false, 40L, null));
+    }
+
+    @Test
+    void streamAvailability_shouldAskForResync_whenFullStreamCannotReplay() throws Exception {
+        when(bookChangeService.findSince(5L, 500)).thenReturn(new BookChangePageDto(List.of(), 40L, true));
+
+        var backlog = subscribe(Set.of(), get("/v1/books/availability/stream").header("Last-Event-ID", "5"));
+
+        assertThat(backlog.resync()).isTrue();
+        assertThat(backlog.events()).isEmpty();
+    }
+
+    @Test
+    void streamAvailability_shouldReturnServiceUnavailable_whenHubIsFull() throws Exception {
+        when(bookAvailabilityHub.subscribe(eq(Set.of()), any())).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/v1/books/availability/stream"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    void streamAvailability_shouldRejectTooManyIds() throws Exception {
+        var ids = LongStream.rangeClosed(1, 101).mapToObj(Long::toString).collect(Collectors.joining(","));
+
+        mockMvc.perform(get("/v1/books/availability/stream").param("ids", ids))
+                .andExpect(status().isBadRequest());
+
+        verify(bookAvailabilityHub, never()).subscribe(anySet(), any());
+    }
+
+    /*Opens the stream and runs the backlog the controller handed to the hub, as the hub would*/
+    @SuppressWarnings("unchecked")
+    private BookAvailabilityHub.Backlog subscribe(Set<Long> ids, MockHttpServletRequestBuilder streamRequest) throws Exception {
+        ArgumentCaptor<IntFunction<BookAvailabilityHub.Backlog>> backlog = ArgumentCaptor.forClass(IntFunction.class);
+        when(bookAvailabilityHub.subscribe(eq(ids), backlog.capture())).thenReturn(Optional.of(new SseEmitter()));
+
+        mockMvc.perform(streamRequest)
+                .andExpect(request().asyncStarted());
+
+        return backlog.getValue().apply(128);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.demo.model.BookChange;
+import com.example.demo.model.dto.BookChangeDto;
+import com.example.demo.model.dto.BookChangePageDto;
+import com.example.demo.rest.book.BookChangeController;
+import com.example.demo.rest.book.BookChangeLongPoll;
+import com.example.demo.service.BookChangeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+@WebMvcTest(BookChangeController.class)
+@ExtendWith(MockitoExtension.class)
+@EnableWebMvc
+public class BookChangeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BookChangeService bookChangeService;
+
+    @MockBean
+    private BookChangeLongPoll bookChangeLongPoll;
+
+    @InjectMocks
+    private BookChangeController bookChangeController;
+
+    private BookChangeDto change;
+
+    @BeforeEach
+    void setUp() {
+        change = new BookChangeDto(6L, 1L, BookChange.Type.BORROWED, Instant.parse("2026-10-01T10:00:00Z"));
+
+        mockMvc = MockMvcBuilders.standaloneSetup(bookChangeController).build();
+    }
+
+    @Test
+    void getChanges_shouldAnswerAtOnce_whenChangesAreWaiting() throws Exception {
+        when(bookChangeLongPoll.register(5L, 100)).thenReturn(new DeferredResult<>());
+        when(bookChangeService.findSince(5L, 100)).thenReturn(new BookChangePageDto(List.of(change), 6L));
+
+        var result = mockMvc.perform(get("/v1/books/changes").param("since", "5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].type").value("BORROWED"))
+                .andExpect(jsonPath("$.lastSeq").value(6));
+    }
+
+    @Test
+    void getChanges_shouldPark_whenCallerIsUpToDate() throws Exception {
+        var parked = new DeferredResult<BookChangePageDto>();
+        when(bookChangeLongPoll.register(6L, 100)).thenReturn(parked);
+        when(bookChangeService.findSince(6L, 100)).thenReturn(new BookChangePageDto(List.of(), 6L));
+
+        mockMvc.perform(get("/v1/books/changes").param("since", "6"))
+                .andExpect(request().asyncStarted());
+
+        assertThat(parked.hasResult()).isFalse();
+    }
+
+    @Test
+    void getChanges_shouldFlagResync_whenHistoryAfterSinceWasPurged() throws Exception {
+        when(bookChangeService.findSince(2L, 100)).thenReturn(new BookChangePageDto(List.of(), 40L, true));
+
+        var result = mockMvc.perform(get("/v1/books/changes")
+                        .param("since", "2")
+                        .param("wait", "false"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resyncRequired").value(true))
+                .andExpect(jsonPath("$.lastSeq").value(40));
+    }
+
+    @Test
+    void getChanges_shouldNotPark_whenWaitIsFalse() throws Exception {
+        when(bookChangeService.findSince(6L, 10)).thenReturn(new BookChangePageDto(List.of(), 6L));
+
+        var result = mockMvc.perform(get("/v1/books/changes")
+                        .param("since", "6")
+                        .param("limit", "10")
+                        .param("wait", "false"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isEmpty())
+                .andExpect(jsonPath("$.lastSeq").value(6));
+        verify(bookChangeLongPoll, never()).register(6L, 10);
+    }
+}
@@ -1,18 +1,31 @@
 package com.example.demo.rest;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.example.demo.model.dto.BookBatchResultDto;
 import com.example.demo.model.dto.BookDto;
+import com.example.demo.model.dto.BookFilterDto;
+import com.example.demo.model.dto.BookPageDto;
+import com.example.demo.model.dto.BookSearchHitDto;
+import com.example.demo.model.dto.BookSearchPageDto;
 import com.example.demo.rest.book.BookController;
 import com.example.demo.service.BookService;
+import com.example.demo.service.BookVersionMismatchException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,15 +33,19 @@ import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.util.ReflectionTestUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @WebMvcTest(BookController.class)
 @ExtendWith(MockitoExtension.class)
@@ -57,18 +74,95 @@ public class BookControllerTest {
         bookDto.setAuthor("Test Author");
         bookDto.setIsbn("123");
         bookDto.setCategory("category");
+        bookDto.setVersion(3L);
 
+        ReflectionTestUtils.setField(bookController, "objectMapper", objectMapper);
         mockMvc = MockMvcBuilders.standaloneSetup(bookController).build();
     }
 
     @Test
-    void getAllBooks_shouldReturnListOfBooks() throws Exception {
-        when(bookService.findAll()).thenReturn(Collections.singletonList(bookDto));
+    void streamAllBooks_shouldWriteEveryBookAsOneArray() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<BookDto> consumer = invocation.getArgument(0);
+            for (long id = 1; id <= 5000; id++) {
+                consumer.accept(new BookDto(id, "Title " + id, "Author", "isbn-" + id, "category", false, 0L));
+            }
+            return null;
+        }).when(bookService).streamAll(any());
+
+        var result = mockMvc.perform(get("/v1/books/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5000))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[4999].id").value(5000));
+    }
+
+    @Test
+    void getAllBooks_shouldReturnFirstPageOfBooks() throws Exception {
+        when(bookService.findAll(new BookFilterDto(), null, 50)).thenReturn(new BookPageDto(Collections.singletonList(bookDto), 1L));
+
+        mockMvc.perform(get("/v1/books")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").value("Test Book"))
+                .andExpect(jsonPath("$.nextCursor").value(1));
+    }
+
+    @Test
+    void getAllBooks_shouldPassCursorAndLimit() throws Exception {
+        when(bookService.findAll(new BookFilterDto(), 1L, 10)).thenReturn(new BookPageDto(Collections.emptyList(), null));
+
+        mockMvc.perform(get("/v1/books")
+                        .param("after", "1")
+                        .param("limit", "10")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isEmpty())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getAllBooks_shouldPassFilters() throws Exception {
+        var filter = new BookFilterDto("Test Author", "category", "test", false);
+        when(bookService.findAll(filter, null, 50)).thenReturn(new BookPageDto(Collections.singletonList(bookDto), null));
 
         mockMvc.perform(get("/v1/books")
+                        .param("author", "Test Author")
+                        .param("category", "category")
+                        .param("title", "test")
+                        .param("borrowed", "false")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].title").value("Test Book"));
+                .andExpect(jsonPath("$.content[0].title").value("Test Book"));
+    }
+
+    @Test
+    void searchBooks_shouldReturnRankedHits() throws Exception {
+        var hit = new BookSearchHitDto(bookDto, 0.6f, "<mark>Test</mark> Book - Test Author");
+        when(bookService.search("test", 0, 20, true)).thenReturn(new BookSearchPageDto(List.of(hit), 0, false));
+
+        mockMvc.perform(get("/v1/books/search")
+                        .param("q", "test")
+                        .param("highlight", "true")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].book.title").value("Test Book"))
+                .andExpect(jsonPath("$.content[0].highlight").value("<mark>Test</mark> Book - Test Author"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void searchBooks_shouldReturnBadRequest_whenQueryRejected() throws Exception {
+        when(bookService.search(" ", 0, 20, false)).thenThrow(new RuntimeException("Search query must not be empty"));
+
+        mockMvc.perform(get("/v1/books/search")
+                        .param("q", " ")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -81,6 +175,40 @@ public class BookControllerTest {
                 .andExpect(jsonPath("$.title").value("Test Book"));
     }
 
+    @Test
+    void getBookById_shouldReturnETagFromVersion() throws Exception {
+        when(bookService.findById(1L)).thenReturn(Optional.of(bookDto));
+
+        mockMvc.perform(get("/v1/books/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    @Test
+    void getBookById_shouldReturnNotModified_whenETagMatches() throws Exception {
+        when(bookService.findById(1L)).thenReturn(Optional.of(bookDto));
+
+        mockMvc.perform(get("/v1/books/1")
+                        .header("If-None-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getAllBooks_shouldReturnNotModified_whenPageUnchanged() throws Exception {
+        when(bookService.findAll(new BookFilterDto(), null, 50))
+                .thenReturn(new BookPageDto(Collections.singletonList(bookDto), null));
+
+        var eTag = mockMvc.perform(get("/v1/books"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/v1/books")
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     void getBookById_shouldReturnNotFound_whenBookDoesNotExist() throws Exception {
         when(bookService.findById(1L)).thenReturn(Optional.empty());
@@ -102,10 +230,51 @@ public class BookControllerTest {
                 .andExpect(jsonPath("$.title").value("Test Book"));
     }
 
+    @Test
+    void createBook_shouldReturnConflict_whenIsbnExists() throws Exception {
+        when(bookService.save(any(BookDto.class))).thenThrow(new DataIntegrityViolationException("book_isbn_uidx"));
+
+        mockMvc.perform(post("/v1/books")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookDto)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void getBookByIsbn_shouldReturnBook_whenBookExists() throws Exception {
+        when(bookService.findByIsbn("123")).thenReturn(Optional.of(bookDto));
+
+        mockMvc.perform(get("/v1/books/isbn/123")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.isbn").value("123"));
+    }
+
+    @Test
+    void getBookByIsbn_shouldReturnNotFound_whenBookDoesNotExist() throws Exception {
+        when(bookService.findByIsbn("123")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/v1/books/isbn/123")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void upsertBookByIsbn_shouldReturnBook() throws Exception {
+        when(bookService.upsertByIsbn(eq("123"), any(BookDto.class))).thenReturn(bookDto);
+
+        mockMvc.perform(put("/v1/books/isbn/123")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Test Book"));
+    }
+
     @Test
     void updateBook_shouldReturnUpdatedBook_whenBookExists() throws Exception {
-        when(bookService.findById(1L)).thenReturn(Optional.of(bookDto));
-        when(bookService.save(any(BookDto.class))).thenReturn(bookDto);
+        when(bookService.update(eq(1L), isNull(), any(BookDto.class))).thenReturn(Optional.of(bookDto));
 
         mockMvc.perform(put("/v1/books/1")
                         .with(csrf())
@@ -117,7 +286,7 @@ public class BookControllerTest {
 
     @Test
     void updateBook_shouldReturnNotFound_whenBookDoesNotExist() throws Exception {
-        when(bookService.findById(1L)).thenReturn(Optional.empty());
+        when(bookService.update(eq(1L), isNull(), any(BookDto.class))).thenReturn(Optional.empty());
 
         mockMvc.perform(put("/v1/books/1")
                         .with(csrf())
@@ -126,9 +295,66 @@ public class BookControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void updateBook_shouldPassIfMatchVersion() throws Exception {
+        when(bookService.update(eq(1L), eq(3L), any(BookDto.class))).thenReturn(Optional.of(bookDto));
+
+        mockMvc.perform(put("/v1/books/1")
+                        .with(csrf())
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    @Test
+    void updateBook_shouldReturnPreconditionFailed_whenVersionIsStale() throws Exception {
+        when(bookService.update(eq(1L), eq(2L), any(BookDto.class)))
+                .thenThrow(new BookVersionMismatchException("Book has been modified since version 2"));
+
+        mockMvc.perform(put("/v1/books/1")
+                        .with(csrf())
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookDto)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void deleteBook_shouldReturnPreconditionFailed_whenIfMatchIsUnknown() throws Exception {
+        mockMvc.perform(delete("/v1/books/1")
+                        .with(csrf())
+                        .header("If-Match", "\"not-a-version\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void patchBook_shouldReturnPatchedBook_whenBookExists() throws Exception {
+        when(bookService.patch(eq(1L), isNull(), any(BookDto.class))).thenReturn(Optional.of(bookDto));
+
+        mockMvc.perform(patch("/v1/books/1")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Test Book\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Test Book"));
+    }
+
+    @Test
+    void patchBook_shouldReturnNotFound_whenBookDoesNotExist() throws Exception {
+        when(bookService.patch(eq(1L), isNull(), any(BookDto.class))).thenReturn(Optional.empty());
+
+        mockMvc.perform(patch("/v1/books/1")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Test Book\"}"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void deleteBook_shouldReturnOk_whenBookExists() throws Exception {
-        when(bookService.findById(1L)).thenReturn(Optional.of(bookDto));
+        when(bookService.deleteById(1L, null)).thenReturn(true);
 
         mockMvc.perform(delete("/v1/books/1")
                         .with(csrf())
@@ -138,7 +364,7 @@ public class BookControllerTest {
 
     @Test
     void deleteBook_shouldReturnNotFound_whenBookDoesNotExist() throws Exception {
-        when(bookService.findById(1L)).thenReturn(Optional.empty());
+        when(bookService.deleteById(1L, null)).thenReturn(false);
 
         mockMvc.perform(delete("/v1/books/1")
                         .with(csrf())
@@ -187,5 +413,30 @@ public class BookControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
     }
-}
 
+    @Test
+    void borrowBooks_shouldReturnPerIdResults() throws Exception {
+        when(bookService.borrowBooks(List.of(1L, 2L))).thenReturn(List.of(
+                new BookBatchResultDto(1L, BookBatchResultDto.Status.BORROWED),
+                new BookBatchResultDto(2L, BookBatchResultDto.Status.NOT_FOUND)));
+
+        mockMvc.perform(post("/v1/books/borrow:batch")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(1L, 2L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("BORROWED"))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    void returnBooks_shouldReturnBadRequest_whenBatchIsRejected() throws Exception {
+        when(bookService.returnBooks(List.of())).thenThrow(new RuntimeException("Batch must contain between 1 and 1000 ids"));
+
+        mockMvc.perform(post("/v1/books/return:batch")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+}
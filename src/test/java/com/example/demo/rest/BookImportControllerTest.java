@@ -0,0 +1,120 @@
+package com.example.demo.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.demo.model.dto.BookDto;
+import com.example.demo.rest.book.BookImportController;
+import com.example.demo.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+@WebMvcTest(BookImportController.class)
+@ExtendWith(MockitoExtension.class)
+public class BookImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BookService bookService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private BookImportController bookImportController;
+
+    private List<BookDto> imported;
+
+    @BeforeEach
+    void setUp() {
+        imported = new ArrayList<>();
+        mockMvc = MockMvcBuilders.standaloneSetup(bookImportController).build();
+    }
+
+    @Test
+    void importBooks_shouldImportEveryNdjsonLine() throws Exception {
+        when(bookService.importBooks(any())).thenAnswer(invocation -> drain(invocation.getArgument(0)));
+
+        mockMvc.perform(post("/v1/books:bulk")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("""
+                                {"title":"First","author":"A","isbn":"1","category":"c"}
+                                {"title":"Second","author":"B","isbn":"2","category":"c"}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+
+        assertThat(imported)
+                .extracting(BookDto::getTitle)
+                .containsExactly("First", "Second");
+    }
+
+    @Test
+    void importBooks_shouldSkipCsvHeaderAndUnquoteFields() throws Exception {
+        when(bookService.importBooks(any())).thenAnswer(invocation -> drain(invocation.getArgument(0)));
+
+        mockMvc.perform(post("/v1/books:bulk")
+                        .with(csrf())
+                        .contentType("text/csv")
+                        .content("""
+                                title,author,isbn,category
+                                "Title, with comma",Author,9780000000001,category
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1));
+
+        assertThat(imported.getFirst().getTitle()).isEqualTo("Title, with comma");
+    }
+
+    @Test
+    void importBooks_shouldReturnBadRequest_whenCsvRowIsMalformed() throws Exception {
+        when(bookService.importBooks(any())).thenAnswer(invocation -> drain(invocation.getArgument(0)));
+
+        mockMvc.perform(post("/v1/books:bulk")
+                        .with(csrf())
+                        .contentType("text/csv")
+                        .content("only,three,columns\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void importBooks_shouldRejectUnsupportedContentType() throws Exception {
+        mockMvc.perform(post("/v1/books:bulk")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_XML)
+                        .content("<books/>"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verify(bookService, never()).importBooks(any());
+    }
+
+    private long drain(Iterator<BookDto> books) {
+        books.forEachRemaining(imported::add);
+        return imported.size();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.rest;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.demo.model.dto.BookStatsDto;
+import com.example.demo.model.dto.CategoryStatsDto;
+import com.example.demo.rest.book.BookStatsController;
+import com.example.demo.service.BookStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+@WebMvcTest(BookStatsController.class)
+@ExtendWith(MockitoExtension.class)
+@EnableWebMvc
+public class BookStatsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BookStatsService bookStatsService;
+
+    @InjectMocks
+    private BookStatsController bookStatsController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(bookStatsController).build();
+    }
+
+    @Test
+    void getStats_shouldReturnCountsPerCategory() throws Exception {
+        when(bookStatsService.getStats()).thenReturn(new BookStatsDto(
+                List.of(new CategoryStatsDto("Fiction", 3L, 1L), new CategoryStatsDto("History", 2L, 0L)),
+                5L, 1L, Instant.parse("2026-10-01T10:00:00Z")));
+
+        mockMvc.perform(get("/v1/books/stats")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categories[0].category").value("Fiction"))
+                .andExpect(jsonPath("$.categories[0].borrowed").value(1))
+                .andExpect(jsonPath("$.available").value(5))
+                .andExpect(jsonPath("$.borrowed").value(1));
+    }
+}
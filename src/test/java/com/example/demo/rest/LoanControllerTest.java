@@ -0,0 +1,103 @@
+package com.example.demo.rest;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.demo.model.dto.LoanDto;
+import com.example.demo.model.dto.LoanPageDto;
+import com.example.demo.rest.loan.LoanController;
+import com.example.demo.service.LoanService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+@WebMvcTest(LoanController.class)
+@ExtendWith(MockitoExtension.class)
+@EnableWebMvc
+public class LoanControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LoanService loanService;
+
+    @InjectMocks
+    private LoanController loanController;
+
+    private LoanDto loanDto;
+
+    @BeforeEach
+    void setUp() {
+        loanDto = new LoanDto(10L, 1L, "user", Instant.parse("2026-10-01T10:00:00Z"), null);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(loanController).build();
+    }
+
+    @Test
+    void getBookLoans_shouldReturnFirstPage() throws Exception {
+        when(loanService.findByBook(1L, null, null, 50)).thenReturn(new LoanPageDto(List.of(loanDto), null, null));
+
+        mockMvc.perform(get("/v1/books/1/loans")
+                        .principal(new TestingAuthenticationToken("admin", null, "ROLE_ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].username").value("user"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getBookLoans_shouldHideOtherBorrowers_fromNonAdmins() throws Exception {
+        var ownLoan = new LoanDto(11L, 1L, "other", Instant.parse("2026-10-02T10:00:00Z"), null);
+        when(loanService.findByBook(1L, null, null, 50)).thenReturn(new LoanPageDto(List.of(ownLoan, loanDto), null, null));
+
+        mockMvc.perform(get("/v1/books/1/loans")
+                        .principal(new TestingAuthenticationToken("other", null, "ROLE_USER"))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].username").value("other"))
+                .andExpect(jsonPath("$.content[1].username").value(nullValue()))
+                .andExpect(jsonPath("$.content[1].bookId").value(1));
+    }
+
+    @Test
+    void getBookLoans_shouldPassCursor() throws Exception {
+        var before = Instant.parse("2026-10-01T10:00:00Z");
+        when(loanService.findByBook(1L, before, 7L, 10)).thenReturn(new LoanPageDto(List.of(), null, null));
+
+        mockMvc.perform(get("/v1/books/1/loans")
+                        .param("before", "2026-10-01T10:00:00Z")
+                        .param("beforeId", "7")
+                        .param("limit", "10")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isEmpty());
+    }
+
+    @Test
+    void getUserLoans_shouldReturnLoansOfUser() throws Exception {
+        when(loanService.findByUser("user", null, null, 50)).thenReturn(new LoanPageDto(List.of(loanDto), null, null));
+
+        mockMvc.perform(get("/v1/loans")
+                        .param("user", "user")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].bookId").value(1));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.service;
+
+import com.example.demo.model.BookChange;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class BookChangeServiceImplTest {
+
+    @Autowired
+    private BookChangeService bookChangeService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void findSince_shouldRequireResync_onceHistoryAfterSinceWasPurged() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookChangeService.record(1L, BookChange.Type.CREATED);
+            bookChangeService.record(1L, BookChange.Type.UPDATED);
+        });
+        bookChangeService.sequencePending(100);
+        var lastSeq = bookChangeService.lastSeq();
+
+        bookChangeService.purgeBefore(Instant.now().plus(Duration.ofDays(1)));
+
+        var behind = bookChangeService.findSince(lastSeq - 1, 100);
+        assertThat(behind.isResyncRequired()).isTrue();
+        assertThat(behind.getContent()).isEmpty();
+        assertThat(behind.getLastSeq()).isGreaterThanOrEqualTo(lastSeq);
+
+        var upToDate = bookChangeService.findSince(behind.getLastSeq(), 100);
+        assertThat(upToDate.isResyncRequired()).isFalse();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Book;
+import com.example.demo.model.jpa.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class BookServiceImplConcurrencyTest {
+
+    private static final int BORROWERS = 2000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        var book = new Book();
+        book.setTitle("Hot Title");
+        book.setAuthor("Test Author");
+        book.setIsbn("9780000000001");
+        book.setCategory("category");
+        book.setBorrowed(false);
+        bookId = bookRepository.save(book).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteById(bookId);
+    }
+
+    @Test
+    void borrowBook_shouldLetExactlyOneOfManyConcurrentCallersWin() throws Exception {
+        var executor = Executors.newFixedThreadPool(THREADS);
+        var start = new CountDownLatch(1);
+        var results = new ArrayList<Future<Boolean>>(BORROWERS);
+        try {
+            for (int i = 0; i < BORROWERS; i++) {
+                Callable<Boolean> borrow = () -> {
+                    start.await();
+                    try {
+                        bookService.borrowBook(bookId);
+                        return true;
+                    } catch (RuntimeException e) {
+                        return false;
+                    }
+                };
+                results.add(executor.submit(borrow));
+            }
+            start.countDown();
+
+            var successes = 0;
+            for (var result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    successes++;
+                }
+            }
+
+            assertThat(successes).isEqualTo(1);
+            assertThat(bookRepository.findById(bookId)).get()
+                    .extracting(Book::getBorrowed)
+                    .isEqualTo(true);
+            assertThat(jdbcTemplate.queryForObject("select count(*) from loan where book_id = ?", Long.class, bookId))
+                    .isEqualTo(1);
+        } catch (ExecutionException e) {
+            throw new AssertionError(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
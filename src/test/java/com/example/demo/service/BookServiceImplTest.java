@@ -3,10 +3,19 @@ package com.example.demo.service;
 import java.util.List;
 import java.util.Optional;
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.mapper.BookMapper;
 import com.example.demo.model.Book;
+import com.example.demo.model.BookChange;
+import com.example.demo.model.Loan;
+import com.example.demo.model.dto.BookBatchResultDto;
 import com.example.demo.model.dto.BookDto;
+import com.example.demo.model.dto.BookFilterDto;
+import com.example.demo.model.jpa.projection.BookCategoryView;
+import com.example.demo.model.jpa.projection.BookSearchView;
+import com.example.demo.model.jpa.projection.BookUpdateView;
 import com.example.demo.model.jpa.repository.BookRepository;
+import com.example.demo.model.jpa.repository.LoanRepository;
 import com.example.demo.service.impl.BookServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,15 +24,27 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.anyCollection;
+import static org.mockito.Mockito.argThat;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyLong;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +57,21 @@ public class BookServiceImplTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private LoanRepository loanRepository;
+
+    @Mock
+    private BookChangeService bookChangeService;
+
+    @Mock
+    private BookStatsService bookStatsService;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -57,45 +93,113 @@ public class BookServiceImplTest {
     }
 
     @Test
-    void findAll_shouldReturnAllBooks() {
-        when(bookRepository.findAll()).thenReturn(List.of(book));
-        when(bookMapper.toDto(any(Book.class))).thenReturn(bookDto);
+    void findAll_shouldReturnLastPageWithoutCursor() {
+        when(bookRepository.findPageAfter(0L, Limit.of(51))).thenReturn(List.of(bookDto));
 
-        var books = bookService.findAll();
+        var page = bookService.findAll(null, null, 50);
 
-        assertThat(books).hasSize(1);
-        assertThat(books.getFirst().getTitle()).isEqualTo("Test Book");
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getContent().getFirst().getTitle()).isEqualTo("Test Book");
+        assertThat(page.getNextCursor()).isNull();
 
-        verify(bookRepository, times(1)).findAll();
-        verify(bookMapper, times(1)).toDto(any(Book.class));
+        verify(bookMapper, never()).toDto(any(Book.class));
+    }
+
+    @Test
+    void findAll_shouldReturnCursor_whenMoreBooksExist() {
+        var next = new BookDto();
+        next.setId(2L);
+        when(bookRepository.findPageAfter(0L, Limit.of(2))).thenReturn(List.of(bookDto, next));
+
+        var page = bookService.findAll(new BookFilterDto(), 0L, 1);
+
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getNextCursor()).isEqualTo(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findAll_shouldUseSpecification_whenFilterGiven() {
+        when(bookRepository.findDtos(any(Specification.class), eq(51))).thenReturn(List.of(bookDto));
+
+        var page = bookService.findAll(new BookFilterDto("Test Author", null, null, null), null, 50);
+
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+
+        verify(bookRepository, never()).findPageAfter(anyLong(), any());
+        verify(bookMapper, never()).toDto(any(Book.class));
+    }
+
+    @Test
+    void search_shouldFetchOneExtraRowToDetectNextPage() {
+        var row = mock(BookSearchView.class);
+        when(row.getScore()).thenReturn(0.5f);
+        when(bookRepository.search("test", 3, 4)).thenReturn(List.of(row, row, row));
+        when(bookMapper.toDto(row)).thenReturn(bookDto);
+
+        var page = bookService.search("test", 2, 2, false);
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getContent().getFirst().getScore()).isEqualTo(0.5f);
+        assertThat(page.isHasNext()).isTrue();
+        verify(bookRepository, never()).searchHighlighted(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void search_shouldRejectBlankQueryAndDeepPages() {
+        assertThatThrownBy(() -> bookService.search(" ", 0, 20, false))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Search query must not be empty");
+        assertThatThrownBy(() -> bookService.search("test", Integer.MAX_VALUE, 100, false))
+                .isInstanceOf(RuntimeException.class);
     }
 
     @Test
     void findById_shouldReturnBook_whenBookExists() {
-        when(bookRepository.findById(anyLong())).thenReturn(Optional.of(book));
-        when(bookMapper.toDto(any(Book.class))).thenReturn(bookDto);
+        when(bookRepository.findDtoById(anyLong())).thenReturn(Optional.of(bookDto));
 
         var foundBook = bookService.findById(1L);
 
         assertThat(foundBook).isPresent();
         assertThat(foundBook.get().getTitle()).isEqualTo("Test Book");
 
-        verify(bookRepository, times(1)).findById(anyLong());
-        verify(bookMapper, times(1)).toDto(any(Book.class));
+        verify(bookRepository, times(1)).findDtoById(anyLong());
+        verify(bookMapper, never()).toDto(any(Book.class));
     }
 
     @Test
     void findById_shouldReturnEmpty_whenBookDoesNotExist() {
-        when(bookRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(bookRepository.findDtoById(anyLong())).thenReturn(Optional.empty());
 
         var foundBook = bookService.findById(1L);
 
         assertThat(foundBook).isNotPresent();
 
-        verify(bookRepository, times(1)).findById(anyLong());
+        verify(bookRepository, times(1)).findDtoById(anyLong());
         verify(bookMapper, never()).toDto(any(Book.class));
     }
 
+    @Test
+    void findByIsbn_shouldReturnBook_whenBookExists() {
+        when(bookRepository.findByIsbn("123")).thenReturn(Optional.of(bookDto));
+
+        var foundBook = bookService.findByIsbn("123");
+
+        assertThat(foundBook).isPresent();
+        assertThat(foundBook.get().getTitle()).isEqualTo("Test Book");
+    }
+
+    @Test
+    void upsertByIsbn_shouldRejectIncompleteBook() {
+        var incomplete = new BookDto();
+        incomplete.setTitle("Test Book");
+
+        assertThatThrownBy(() -> bookService.upsertByIsbn("123", incomplete))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Book is missing required fields");
+    }
+
     @Test
     void save_shouldSaveAndReturnBook() {
         when(bookMapper.toEntity(any(BookDto.class))).thenReturn(book);
@@ -110,99 +214,281 @@ public class BookServiceImplTest {
         verify(bookMapper, times(1)).toEntity(any(BookDto.class));
         verify(bookRepository, times(1)).save(any(Book.class));
         verify(bookMapper, times(1)).toDto(any(Book.class));
+        verify(bookChangeService, times(1)).record(book.getId(), BookChange.Type.CREATED);
+        verify(bookStatsService, times(1)).recordCreated(book.getCategory());
     }
 
     @Test
     void deleteById_shouldDeleteBook() {
-        doNothing().when(bookRepository).deleteById(anyLong());
+        var removed = categoryView("Fiction", true);
+        when(bookRepository.lockCategoryById(1L)).thenReturn(Optional.of(removed));
+        when(bookRepository.removeById(anyLong(), isNull())).thenReturn(1);
+
+        assertThat(bookService.deleteById(1L, null)).isTrue();
+
+        verify(bookRepository, times(1)).removeById(anyLong(), isNull());
+        verify(bookRepository, never()).findById(anyLong());
+        verify(bookChangeService, times(1)).record(1L, BookChange.Type.DELETED);
+        verify(bookStatsService, times(1)).recordDeleted("Fiction", true);
+        verify(bookStatsService, never()).requestReconcile();
+    }
+
+    @Test
+    void deleteById_shouldReturnFalse_whenBookDoesNotExist() {
+        assertThat(bookService.deleteById(1L, null)).isFalse();
+
+        verify(bookRepository, never()).removeById(anyLong(), any());
+        verify(bookStatsService, never()).recordDeleted(any(), anyBoolean());
+    }
+
+    @Test
+    void update_shouldReturnEmpty_whenNoRowUpdated() {
+        when(bookRepository.updateInCategory(1L, null, "Test Book", "Test Author", null, null)).thenReturn(0);
+
+        assertThat(bookService.update(1L, null, bookDto)).isNotPresent();
+
+        verify(bookRepository, never()).findDtoById(anyLong());
+        verify(bookChangeService, never()).record(anyLong(), any());
+    }
+
+    @Test
+    void update_shouldReturnUpdatedBook() {
+        when(bookRepository.updateInCategory(1L, null, "Test Book", "Test Author", null, null)).thenReturn(1);
+        when(bookRepository.findDtoById(1L)).thenReturn(Optional.of(bookDto));
+
+        assertThat(bookService.update(1L, null, bookDto)).contains(bookDto);
+
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
+    @Test
+    void update_shouldMoveBookBetweenCategories_whenCategoryChanged() {
+        var previous = categoryView("Fiction", false);
+        bookDto.setCategory("History");
+        when(bookRepository.updateInCategory(1L, null, "Test Book", "Test Author", null, "History")).thenReturn(0);
+        when(bookRepository.lockCategoryById(1L)).thenReturn(Optional.of(previous));
+        when(bookRepository.update(1L, null, "Test Book", "Test Author", null, "History")).thenReturn(1);
+        when(bookRepository.findDtoById(1L)).thenReturn(Optional.of(bookDto));
+
+        bookService.update(1L, null, bookDto);
+
+        verify(bookStatsService, times(1)).recordCategoryChanged("Fiction", "History", false);
+        verify(bookStatsService, never()).requestReconcile();
+    }
+
+    @Test
+    void update_shouldLeaveStatsAlone_whenCategoryUnchanged() {
+        bookDto.setCategory("Fiction");
+        when(bookRepository.updateInCategory(1L, null, "Test Book", "Test Author", null, "Fiction")).thenReturn(1);
+        when(bookRepository.findDtoById(1L)).thenReturn(Optional.of(bookDto));
+
+        bookService.update(1L, null, bookDto);
+
+        verify(bookRepository, never()).lockCategoryById(anyLong());
+        verify(bookRepository, never()).update(anyLong(), any(), any(), any(), any(), any());
+        verify(bookStatsService, never()).recordCategoryChanged(any(), any(), anyBoolean());
+        verify(bookStatsService, never()).requestReconcile();
+    }
+
+    @Test
+    void update_shouldThrowVersionMismatch_whenBookChangedSinceVersion() {
+        when(bookRepository.updateInCategory(1L, 2L, "Test Book", "Test Author", null, null)).thenReturn(0);
+        when(bookRepository.existsById(1L)).thenReturn(true);
+
+        assertThatThrownBy(() -> bookService.update(1L, 2L, bookDto))
+                .isInstanceOf(BookVersionMismatchException.class);
+    }
+
+    @Test
+    void deleteById_shouldReturnFalse_whenConditionalDeleteHitsMissingBook() {
+        when(bookRepository.existsById(1L)).thenReturn(false);
+
+        assertThat(bookService.deleteById(1L, 2L)).isFalse();
+    }
+
+    @Test
+    void patch_shouldNotLockRow_whenCategoryIsNotPatched() {
+        var changes = new BookDto();
+        changes.setTitle("New Title");
+        when(bookRepository.patch(1L, null, changes)).thenReturn(1);
+        when(bookRepository.findDtoById(1L)).thenReturn(Optional.of(bookDto));
+
+        assertThat(bookService.patch(1L, null, changes)).contains(bookDto);
+
+        verify(bookRepository, never()).lockCategoryById(anyLong());
+        verify(bookStatsService, never()).recordCategoryChanged(any(), any(), anyBoolean());
+    }
+
+    @Test
+    void upsertByIsbn_shouldUpdateExistingBookWithoutAllocatingId() {
+        var changes = new BookDto();
+        changes.setTitle("Test Book");
+        changes.setAuthor("Test Author");
+        changes.setCategory("History");
+        var updated = mock(BookUpdateView.class);
+        when(updated.getId()).thenReturn(1L);
+        when(updated.getCategory()).thenReturn("History");
+        when(updated.getPreviousCategory()).thenReturn("Fiction");
+        when(updated.getBorrowed()).thenReturn(false);
+        when(bookRepository.updateByIsbn("123", "Test Book", "Test Author", "History")).thenReturn(Optional.of(updated));
+        when(bookMapper.toDto(updated)).thenReturn(bookDto);
+
+        assertThat(bookService.upsertByIsbn("123", changes)).isEqualTo(bookDto);
+
+        verify(bookRepository, never()).upsertByIsbn(anyLong(), any(), any(), any(), any());
+        verify(bookChangeService, times(1)).record(1L, BookChange.Type.UPDATED);
+        verify(bookStatsService, times(1)).recordCategoryChanged("Fiction", "History", false);
+    }
+
+    @Test
+    void upsertByIsbn_shouldLeaveIdenticalBookUntouched() {
+        var changes = new BookDto();
+        changes.setTitle("Test Book");
+        changes.setAuthor("Test Author");
+        changes.setCategory("Fiction");
+        when(bookRepository.updateByIsbn("123", "Test Book", "Test Author", "Fiction")).thenReturn(Optional.empty());
+        when(bookRepository.findByIsbn("123")).thenReturn(Optional.of(bookDto));
+
+        assertThat(bookService.upsertByIsbn("123", changes)).isEqualTo(bookDto);
+
+        verify(bookRepository, never()).upsertByIsbn(anyLong(), any(), any(), any(), any());
+        verify(bookChangeService, never()).record(anyLong(), any());
+        verifyNoInteractions(bookStatsService);
+    }
 
-        bookService.deleteById(1L);
+    @Test
+    void patch_shouldRejectEmptyChanges() {
+        assertThatThrownBy(() -> bookService.patch(1L, null, new BookDto()))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Nothing to update");
 
-        verify(bookRepository, times(1)).deleteById(anyLong());
+        verify(bookRepository, never()).patch(anyLong(), any(), any());
     }
 
     @Test
     void borrowBook_shouldMarkBookAsBorrowed_whenBookExistsAndNotBorrowed() {
-        when(bookRepository.findById(anyLong())).thenReturn(Optional.of(book));
-        when(bookRepository.save(any(Book.class))).thenReturn(book);
-        when(bookMapper.toDto(any(Book.class))).thenReturn(bookDto);
+        when(bookRepository.markBorrowed(anyLong())).thenReturn(1);
+        when(bookRepository.findDtoById(anyLong())).thenReturn(Optional.of(bookDto));
 
         var borrowedBook = bookService.borrowBook(1L);
 
         assertThat(borrowedBook).isNotNull();
 
-        verify(bookRepository, times(1)).findById(anyLong());
-        verify(bookRepository, times(1)).save(any(Book.class));
-        verify(bookMapper, times(1)).toDto(any(Book.class));
+        verify(bookRepository, times(1)).markBorrowed(anyLong());
+        verify(loanRepository, times(1)).save(argThat(loan -> loan.getBookId().equals(1L)
+                && loan.getUsername().equals("anonymous") && loan.getReturnedAt() == null));
+        verify(bookChangeService, times(1)).record(1L, BookChange.Type.BORROWED);
+        verify(bookStatsService, times(1)).recordBorrowed(bookDto.getCategory(), true);
+        verify(bookRepository, never()).save(any(Book.class));
     }
 
     @Test
     void borrowBook_shouldThrowException_whenBookDoesNotExist() {
-        when(bookRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(bookRepository.markBorrowed(anyLong())).thenReturn(0);
+        when(bookRepository.existsById(anyLong())).thenReturn(false);
 
         assertThatThrownBy(() -> bookService.borrowBook(1L))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessage("Book not found");
 
-        verify(bookRepository, times(1)).findById(anyLong());
-        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookRepository, times(1)).markBorrowed(anyLong());
         verify(bookMapper, never()).toDto(any(Book.class));
     }
 
     @Test
     void borrowBook_shouldThrowException_whenBookIsAlreadyBorrowed() {
-        book.setBorrowed(true);
-        when(bookRepository.findById(anyLong())).thenReturn(Optional.of(book));
+        when(bookRepository.markBorrowed(anyLong())).thenReturn(0);
+        when(bookRepository.existsById(anyLong())).thenReturn(true);
 
         assertThatThrownBy(() -> bookService.borrowBook(1L))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessage("Book is already borrowed");
 
-        verify(bookRepository, times(1)).findById(anyLong());
-        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookRepository, times(1)).markBorrowed(anyLong());
+        verify(loanRepository, never()).save(any(Loan.class));
         verify(bookMapper, never()).toDto(any(Book.class));
     }
 
     @Test
     void returnBook_shouldMarkBookAsNotBorrowed_whenBookExistsAndBorrowed() {
-        book.setBorrowed(true);
-        when(bookRepository.findById(anyLong())).thenReturn(Optional.of(book));
-        when(bookRepository.save(any(Book.class))).thenReturn(book);
-        when(bookMapper.toDto(any(Book.class))).thenReturn(bookDto);
+        when(bookRepository.markReturned(anyLong())).thenReturn(1);
+        when(bookRepository.findDtoById(anyLong())).thenReturn(Optional.of(bookDto));
 
         var returnedBook = bookService.returnBook(1L);
 
         assertThat(returnedBook).isNotNull();
 
-        verify(bookRepository, times(1)).findById(anyLong());
-        verify(bookRepository, times(1)).save(any(Book.class));
-        verify(bookMapper, times(1)).toDto(any(Book.class));
+        verify(bookRepository, times(1)).markReturned(anyLong());
+        verify(loanRepository, times(1)).closeOpenLoans(eq(List.of(1L)), any());
+        verify(bookRepository, never()).save(any(Book.class));
     }
 
     @Test
     void returnBook_shouldThrowException_whenBookDoesNotExist() {
-        when(bookRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(bookRepository.markReturned(anyLong())).thenReturn(0);
+        when(bookRepository.existsById(anyLong())).thenReturn(false);
 
         assertThatThrownBy(() -> bookService.returnBook(1L))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessage("Book not found");
 
-        verify(bookRepository, times(1)).findById(anyLong());
-        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookRepository, times(1)).markReturned(anyLong());
         verify(bookMapper, never()).toDto(any(Book.class));
     }
 
     @Test
     void returnBook_shouldThrowException_whenBookIsNotBorrowed() {
-        when(bookRepository.findById(anyLong())).thenReturn(Optional.of(book));
+        when(bookRepository.markReturned(anyLong())).thenReturn(0);
+        when(bookRepository.existsById(anyLong())).thenReturn(true);
 
         assertThatThrownBy(() -> bookService.returnBook(1L))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessage("Book is not borrowed");
 
-        verify(bookRepository, times(1)).findById(anyLong());
-        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookRepository, times(1)).markReturned(anyLong());
         verify(bookMapper, never()).toDto(any(Book.class));
     }
-}
 
+    @Test
+    void borrowBooks_shouldUpdateOnlyAvailableBooksAndReportEveryId() {
+        var borrowed = new Book();
+        borrowed.setId(2L);
+        borrowed.setBorrowed(true);
+        when(bookRepository.findAllForUpdate(anyCollection())).thenReturn(List.of(book, borrowed));
+        when(cacheManager.getCache(CacheConfig.BOOKS_CACHE)).thenReturn(cache);
+
+        var results = bookService.borrowBooks(List.of(1L, 2L, 3L, 1L));
+
+        assertThat(results).extracting(BookBatchResultDto::getStatus).containsExactly(
+                BookBatchResultDto.Status.BORROWED,
+                BookBatchResultDto.Status.ALREADY_BORROWED,
+                BookBatchResultDto.Status.NOT_FOUND);
+
+        verify(bookRepository, times(1)).updateBorrowed(eq(List.of(1L)), eq(true));
+        verify(loanRepository, times(1)).saveAll(argThat((List<Loan> loans) -> loans.size() == 1));
+        verify(bookChangeService, times(1)).recordAll(List.of(1L), BookChange.Type.BORROWED);
+        verify(bookStatsService, times(1)).recordBorrowed(book.getCategory(), true);
+        verify(cache, times(1)).evict(1L);
+        verify(cache, never()).evict(2L);
+    }
+
+    @Test
+    void returnBooks_shouldSkipUpdate_whenNothingIsBorrowed() {
+        when(bookRepository.findAllForUpdate(anyCollection())).thenReturn(List.of(book));
+
+        var results = bookService.returnBooks(List.of(1L));
+
+        assertThat(results).extracting(BookBatchResultDto::getStatus)
+                .containsExactly(BookBatchResultDto.Status.NOT_BORROWED);
+
+        verify(bookRepository, never()).updateBorrowed(anyCollection(), eq(false));
+        verify(loanRepository, never()).closeOpenLoans(anyCollection(), any());
+    }
+
+    private static BookCategoryView categoryView(String category, boolean borrowed) {
+        var view = mock(BookCategoryView.class);
+        lenient().when(view.getCategory()).thenReturn(category);
+        lenient().when(view.getBorrowed()).thenReturn(borrowed);
+        return view;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Book;
+import com.example.demo.model.dto.BookDto;
+import com.example.demo.model.dto.CategoryStatsDto;
+import com.example.demo.model.jpa.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*Writes against the real repository and H2, the database the tests and the load test run on*/
+@SpringBootTest
+public class BookServiceImplWriteTest {
+
+    private static final String CATEGORY = "write-test";
+    private static final String OTHER_CATEGORY = "write-test-other";
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookStatsService bookStatsService;
+
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        var book = new Book();
+        book.setTitle("Write Test");
+        book.setAuthor("Test Author");
+        book.setIsbn("9780000000002");
+        book.setCategory(CATEGORY);
+        book.setBorrowed(false);
+        bookId = bookRepository.save(book).getId();
+        bookStatsService.reconcile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.findById(bookId).ifPresent(bookRepository::delete);
+    }
+
+    @Test
+    void deleteById_shouldRemoveBookAndTakeItOutOfStats() {
+        assertThat(available(CATEGORY)).isEqualTo(1);
+
+        assertThat(bookService.deleteById(bookId, null)).isTrue();
+
+        assertThat(bookRepository.existsById(bookId)).isFalse();
+        assertThat(available(CATEGORY)).isZero();
+    }
+
+    @Test
+    void deleteById_shouldKeepBook_whenVersionIsStale() {
+        var version = bookRepository.findById(bookId).orElseThrow().getVersion();
+
+        assertThatThrownBy(() -> bookService.deleteById(bookId, version + 1))
+                .isInstanceOf(BookVersionMismatchException.class);
+
+        assertThat(bookRepository.existsById(bookId)).isTrue();
+        assertThat(available(CATEGORY)).isEqualTo(1);
+    }
+
+    @Test
+    void update_shouldMoveBookToNewCategoryInStats() {
+        var changes = new BookDto();
+        changes.setTitle("Write Test");
+        changes.setAuthor("Test Author");
+        changes.setIsbn("9780000000002");
+        changes.setCategory(OTHER_CATEGORY);
+
+        assertThat(bookService.update(bookId, null, changes)).get()
+                .extracting(BookDto::getCategory)
+                .isEqualTo(OTHER_CATEGORY);
+
+        assertThat(available(CATEGORY)).isZero();
+        assertThat(available(OTHER_CATEGORY)).isEqualTo(1);
+    }
+
+    @Test
+    void patch_shouldKeepStats_whenCategoryIsUnchanged() {
+        var changes = new BookDto();
+        changes.setTitle("Renamed");
+        changes.setCategory(CATEGORY);
+
+        assertThat(bookService.patch(bookId, null, changes)).get()
+                .extracting(BookDto::getTitle)
+                .isEqualTo("Renamed");
+
+        assertThat(available(CATEGORY)).isEqualTo(1);
+    }
+
+    private long available(String category) {
+        return bookStatsService.getStats().getCategories().stream()
+                .filter(stats -> category.equals(stats.getCategory()))
+                .mapToLong(CategoryStatsDto::getAvailable)
+                .sum();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.service;
+
+import java.util.List;
+
+import com.example.demo.model.dto.CategoryStatsDto;
+import com.example.demo.model.jpa.repository.BookRepository;
+import com.example.demo.service.impl.BookStatsServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookStatsServiceImplTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private BookStatsServiceImpl bookStatsService;
+
+    @Test
+    void getStats_shouldReconcileOnFirstUseOnly() {
+        when(bookRepository.countByCategory()).thenReturn(List.of(new CategoryStatsDto("Fiction", 2L, 1L)));
+
+        bookStatsService.getStats();
+        var stats = bookStatsService.getStats();
+
+        assertThat(stats.getAvailable()).isEqualTo(2);
+        assertThat(stats.getBorrowed()).isEqualTo(1);
+        assertThat(stats.getReconciledAt()).isNotNull();
+        verify(bookRepository, times(1)).countByCategory();
+    }
+
+    @Test
+    void recordBorrowed_shouldMoveBookBetweenCounters() {
+        when(bookRepository.countByCategory()).thenReturn(List.of(new CategoryStatsDto("Fiction", 2L, 0L)));
+        bookStatsService.reconcile();
+
+        bookStatsService.recordCreated("History");
+        bookStatsService.recordBorrowed("Fiction", true);
+
+        assertThat(bookStatsService.getStats().getCategories()).containsExactly(
+                new CategoryStatsDto("Fiction", 1L, 1L),
+                new CategoryStatsDto("History", 1L, 0L));
+    }
+
+    @Test
+    void recordDeletedAndCategoryChanged_shouldAdjustCountersWithoutReconcile() {
+        when(bookRepository.countByCategory()).thenReturn(List.of(new CategoryStatsDto("Fiction", 2L, 1L)));
+        bookStatsService.reconcile();
+
+        bookStatsService.recordDeleted("Fiction", true);
+        bookStatsService.recordCategoryChanged("Fiction", "History", false);
+
+        assertThat(bookStatsService.getStats().getCategories()).containsExactly(
+                new CategoryStatsDto("Fiction", 1L, 0L),
+                new CategoryStatsDto("History", 1L, 0L));
+        verify(bookRepository, times(1)).countByCategory();
+    }
+
+    @Test
+    void reconcile_shouldReplaceDriftedCounters() {
+        when(bookRepository.countByCategory())
+                .thenReturn(List.of(new CategoryStatsDto("Fiction", 2L, 0L)))
+                .thenReturn(List.of(new CategoryStatsDto(null, 1L, 0L)));
+        bookStatsService.reconcile();
+        bookStatsService.recordBorrowed("Fiction", true);
+
+        bookStatsService.reconcile();
+
+        assertThat(bookStatsService.getStats().getCategories())
+                .containsExactly(new CategoryStatsDto(null, 1L, 0L));
+    }
+}
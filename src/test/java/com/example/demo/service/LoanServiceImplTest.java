@@ -0,0 +1,56 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Loan;
+import com.example.demo.model.dto.LoanDto;
+import com.example.demo.model.jpa.repository.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class LoanServiceImplTest {
+
+    private static final String USERNAME = "batch-borrower";
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    private final List<Loan> saved = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAll(saved);
+    }
+
+    @Test
+    void findByUser_shouldPageThroughLoansSharingOneTimestamp() {
+        /*What a batch borrow writes: several loans stamped with the same instant, plus an older one*/
+        var batchAt = Instant.parse("2026-10-01T10:00:00Z");
+        IntStream.range(0, 5).forEach(i -> saved.add(loanRepository.save(new Loan(100L + i, USERNAME, batchAt))));
+        saved.add(loanRepository.save(new Loan(200L, USERNAME, batchAt.minusSeconds(60))));
+
+        var seen = new ArrayList<LoanDto>();
+        var page = loanService.findByUser(USERNAME, null, null, 2);
+        seen.addAll(page.getContent());
+        while (page.getNextCursor() != null) {
+            page = loanService.findByUser(USERNAME, page.getNextCursor(), page.getNextCursorId(), 2);
+            seen.addAll(page.getContent());
+        }
+
+        assertThat(seen).extracting(LoanDto::getId)
+                .doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(saved.stream().map(Loan::getId).toList());
+        assertThat(seen.getLast().getBorrowedAt()).isEqualTo(batchAt.minusSeconds(60));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.service;
+
+import com.example.demo.config.datasource.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * Two pools on one in-memory H2 database stand in for primary and replica, so the replica needs no
+ * schema of its own; connections from the replica pool carry a session variable to tell them apart.
+ * The database is separate from the other tests' testdb, which create-drop would otherwise reset.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routingdb",
+        "spring.datasource.replica.url=jdbc:h2:mem:routingdb",
+        "spring.datasource.replica.username=sa",
+        "spring.datasource.replica.password=password",
+        "spring.datasource.replica.hikari.connection-init-sql=SET @POOL = 'replica'"
+})
+public class ReadReplicaRoutingTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransaction_shouldUseReplica() {
+        assertThat(poolIn(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransaction_shouldUsePrimary() {
+        assertThat(poolIn(false)).isNull();
+    }
+
+    @Test
+    void readOnlyTransaction_shouldStayOnPrimary_rightAfterSameUserWrote() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("writer", null, "ROLE_USER"));
+        poolIn(false);
+
+        assertThat(poolIn(true)).isNull();
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("reader", null, "ROLE_USER"));
+        assertThat(poolIn(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void readOnlyTransaction_shouldUsePrimary_forReadsThatFillTheSharedCache() {
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        var pool = transaction.execute(status -> ReplicaRoutingDataSource.readFromPrimary(
+                () -> jdbcTemplate.queryForObject("SELECT @POOL", String.class)));
+
+        assertThat(pool).isNull();
+        assertThat(poolIn(true)).isEqualTo("replica");
+    }
+
+    private String poolIn(boolean readOnly) {
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT @POOL", String.class));
+    }
+}